@@ -0,0 +1,164 @@
+package fks.healthhub_backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import fks.healthhub_backend.dto.ScheduledWorkoutRowDTO;
+import fks.healthhub_backend.dto.WorkoutDetailRowDTO;
+import fks.healthhub_backend.model.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Synthetic entity graphs of production size, built in memory so benchmarks run without a database.
+ */
+final class BenchmarkFixtures {
+    static final int EXERCISES_PER_WORKOUT = 20;
+    static final int SCHEDULES = 10_000;
+    static final int USERS = 50;
+    static final int WORKOUTS = 30;
+    static final ZonedDateTime NOW = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkFixtures() {
+    }
+
+    /** Configured the way Spring Boot configures the application's mapper. */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new Hibernate6Module())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                        SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static User user(long id) {
+        User user = new User("user" + id, "secret" + id);
+        user.setId(id);
+        return user;
+    }
+
+    static List<User> users() {
+        List<User> users = new ArrayList<>(USERS);
+        for (long id = 1; id <= USERS; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+
+    static Workout workout(long id, User owner, int exercises) {
+        Workout workout = new Workout();
+        workout.setId(id);
+        workout.setTitle("Workout " + id);
+        workout.setDescription("Synthetic workout " + id + " used by the benchmarks");
+        workout.setDuration(45);
+        workout.setWorkoutType(WorkoutType.values()[(int) (id % WorkoutType.values().length)]);
+        workout.setCreatedAt(NOW);
+        workout.setUpdatedAt(NOW);
+        workout.setUser(owner);
+        for (int i = 0; i < exercises; i++) {
+            Exercise exercise = new Exercise("Exercise " + i);
+            exercise.setId(id * 100 + i);
+            exercise.setDescription("Synthetic exercise " + i);
+            exercise.setExerciseDifficulty(ExerciseDifficulty.values()[i % ExerciseDifficulty.values().length]);
+            exercise.getMuscleGroups().add(MuscleGroup.values()[i % MuscleGroup.values().length]);
+
+            WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
+            workoutHasExercises.setId(id * 100 + i);
+            workoutHasExercises.setWorkout(workout);
+            workoutHasExercises.setExercise(exercise);
+            workoutHasExercises.setSets(3 + i % 3);
+            workoutHasExercises.setRepetitions(8 + i % 5);
+            workoutHasExercises.setWeight(20 + i * 2.5);
+            workoutHasExercises.setDuration(60);
+            workoutHasExercises.setRestTime(90);
+            workout.getWorkoutHasExercises().add(workoutHasExercises);
+        }
+        return workout;
+    }
+
+    static List<Workout> workouts(List<User> users) {
+        List<Workout> workouts = new ArrayList<>(WORKOUTS);
+        for (long id = 1; id <= WORKOUTS; id++) {
+            workouts.add(workout(id, users.get((int) (id % users.size())), EXERCISES_PER_WORKOUT));
+        }
+        return workouts;
+    }
+
+    static List<WorkoutDetailRowDTO> detailRows(Workout workout) {
+        List<WorkoutDetailRowDTO> rows = new ArrayList<>();
+        for (WorkoutHasExercises workoutHasExercises : workout.getWorkoutHasExercises()) {
+            rows.add(new WorkoutDetailRowDTO(workout.getId(), workout.getTitle(), workout.getDescription(),
+                    workout.getWorkoutType(), workout.getUser().getId(), workout.getUser().getUsername(),
+                    workoutHasExercises.getId(), workoutHasExercises.getSets(), workoutHasExercises.getRepetitions(),
+                    workoutHasExercises.getWeight(), workoutHasExercises.getRestTime()));
+        }
+        return rows;
+    }
+
+    /** Schedules spread over a year, a quarter of them completed. */
+    static List<UserHasWorkouts> schedules(List<User> users, List<Workout> workouts, int count) {
+        List<UserHasWorkouts> schedules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserHasWorkouts schedule = new UserHasWorkouts();
+            schedule.setId((long) i + 1);
+            schedule.setUser(users.get(i % users.size()));
+            schedule.setWorkout(workouts.get(i % workouts.size()));
+            schedule.setScheduledAt(NOW.minusDays(i % 365).plusHours(i % 12));
+            schedule.setCompleted(i % 4 == 0);
+            schedules.add(schedule);
+        }
+        return schedules;
+    }
+
+    static List<ScheduledWorkoutRowDTO> scheduleRows(List<UserHasWorkouts> schedules) {
+        return schedules.stream()
+                .map(schedule -> new ScheduledWorkoutRowDTO(schedule.getId(), schedule.getUser().getId(),
+                        schedule.getWorkout().getId(), schedule.getScheduledAt(), schedule.getCompleted()))
+                .toList();
+    }
+
+    static List<RecurringWorkout> recurringWorkouts(User user, List<Workout> workouts, int count) {
+        List<RecurringWorkout> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RecurringWorkout rule = new RecurringWorkout();
+            rule.setId((long) i + 1);
+            rule.setUser(user);
+            rule.setWorkout(workouts.get(i % workouts.size()));
+            rule.setDayOfWeek(DayOfWeek.of(i % 7 + 1));
+            rule.setStartDate(LocalDate.of(2024, 1, 1));
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * Implements a repository interface by method name; any method without an answer fails loudly so a
+     * benchmark never silently measures a code path it did not set up.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+            }
+            return answer.apply(args);
+        });
+    }
+}
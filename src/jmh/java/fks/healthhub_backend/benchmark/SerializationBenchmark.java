@@ -0,0 +1,92 @@
+package fks.healthhub_backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.dto.ScheduledWorkoutRowDTO;
+import fks.healthhub_backend.dto.WorkoutDTO;
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.User;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.model.WorkoutHasExercises;
+import fks.healthhub_backend.repository.WorkoutRepository;
+import fks.healthhub_backend.service.NdjsonWriter;
+import fks.healthhub_backend.service.WorkoutService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a JSON tree with {@code valueToTree}, which the services used to return, against writing
+ * bytes directly, for a single workout and for a 10k-row schedule.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private NdjsonWriter ndjsonWriter;
+    private Workout workout;
+    private WorkoutDTO workoutDTO;
+    private List<Exercise> exercises;
+    private List<UserHasWorkouts> schedules;
+    private List<ScheduledWorkoutRowDTO> scheduleRows;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        ndjsonWriter = new NdjsonWriter(objectMapper);
+        List<User> users = BenchmarkFixtures.users();
+        List<Workout> workouts = BenchmarkFixtures.workouts(users);
+        workout = workouts.get(0);
+        exercises = workout.getWorkoutHasExercises().stream().map(WorkoutHasExercises::getExercise).toList();
+        WorkoutRepository workoutRepository = BenchmarkFixtures.stub(WorkoutRepository.class,
+                Map.of("findDetailRowsById", args -> BenchmarkFixtures.detailRows(workout)));
+        workoutDTO = new WorkoutService(workoutRepository, objectMapper, null, null, null, null, null, null, null, null)
+                .getWorkout(workout.getId());
+        schedules = BenchmarkFixtures.schedules(users, workouts, BenchmarkFixtures.SCHEDULES);
+        scheduleRows = BenchmarkFixtures.scheduleRows(schedules);
+    }
+
+    @Benchmark
+    public JsonNode workoutValueToTree() {
+        return objectMapper.valueToTree(workout);
+    }
+
+    @Benchmark
+    public byte[] workoutDtoAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(workoutDTO);
+    }
+
+    @Benchmark
+    public JsonNode exercisesValueToTree() {
+        return objectMapper.valueToTree(exercises);
+    }
+
+    @Benchmark
+    public byte[] exercisesAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(exercises);
+    }
+
+    @Benchmark
+    public JsonNode schedulesValueToTree() {
+        return objectMapper.valueToTree(schedules);
+    }
+
+    @Benchmark
+    public byte[] schedulesAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(schedules);
+    }
+
+    @Benchmark
+    public long schedulesAsNdjson() throws IOException {
+        return ndjsonWriter.write(scheduleRows.stream(), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,55 @@
+package fks.healthhub_backend.benchmark;
+
+import fks.healthhub_backend.dto.WorkoutDTO;
+import fks.healthhub_backend.dto.WorkoutDetailRowDTO;
+import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.model.WorkoutHasExercises;
+import fks.healthhub_backend.repository.WorkoutRepository;
+import fks.healthhub_backend.service.WorkoutService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkoutMappingBenchmark {
+    private Workout workout;
+    private List<WorkoutDetailRowDTO> rows;
+    private WorkoutService workoutService;
+
+    @Setup
+    public void setUp() {
+        workout = BenchmarkFixtures.workout(1L, BenchmarkFixtures.user(1L), BenchmarkFixtures.EXERCISES_PER_WORKOUT);
+        rows = BenchmarkFixtures.detailRows(workout);
+        WorkoutRepository workoutRepository = BenchmarkFixtures.stub(WorkoutRepository.class,
+                Map.of("findDetailRowsById", args -> rows));
+        workoutService = new WorkoutService(workoutRepository, BenchmarkFixtures.objectMapper(),
+                null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public void mapEntities(Blackhole blackhole) {
+        for (WorkoutHasExercises workoutHasExercises : workout.getWorkoutHasExercises()) {
+            blackhole.consume(WorkoutService.WorkoutHasExercisesMapper.toDto(workoutHasExercises));
+        }
+    }
+
+    @Benchmark
+    public void mapDetailRows(Blackhole blackhole) {
+        for (WorkoutDetailRowDTO row : rows) {
+            blackhole.consume(WorkoutService.WorkoutHasExercisesMapper.toDto(row));
+        }
+    }
+
+    @Benchmark
+    public WorkoutDTO getWorkout() {
+        return workoutService.getWorkout(1L);
+    }
+}
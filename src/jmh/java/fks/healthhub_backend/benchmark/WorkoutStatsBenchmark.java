@@ -0,0 +1,88 @@
+package fks.healthhub_backend.benchmark;
+
+import fks.healthhub_backend.dto.RecurringOccurrenceDTO;
+import fks.healthhub_backend.dto.WorkoutCompletionDTO;
+import fks.healthhub_backend.dto.WorkoutStatsTotalsDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
+import fks.healthhub_backend.model.User;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
+import fks.healthhub_backend.repository.UserWorkoutStatsRepository;
+import fks.healthhub_backend.repository.WorkoutAnalyticsRepository;
+import fks.healthhub_backend.service.RecurringWorkoutSchedule;
+import fks.healthhub_backend.service.UserService;
+import fks.healthhub_backend.service.WorkoutStatsRollup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completion and favourite counts are read from the rollup, so the per-row work that remains is folding
+ * written schedules into rollup deltas and expanding recurring rules; both are measured here on 10k rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkoutStatsBenchmark {
+    private final LongAdder upserts = new LongAdder();
+    private List<UserHasWorkouts> schedules;
+    private WorkoutStatsRollup workoutStatsRollup;
+    private RecurringWorkoutSchedule recurringWorkoutSchedule;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        List<User> users = BenchmarkFixtures.users();
+        List<Workout> workouts = BenchmarkFixtures.workouts(users);
+        schedules = BenchmarkFixtures.schedules(users, workouts, BenchmarkFixtures.SCHEDULES);
+        List<RecurringWorkout> rules = BenchmarkFixtures.recurringWorkouts(users.get(0), workouts, 7);
+
+        workoutStatsRollup = new WorkoutStatsRollup(BenchmarkFixtures.stub(UserWorkoutStatsRepository.class,
+                Map.of("upsert", args -> {
+                    upserts.increment();
+                    return null;
+                })));
+        recurringWorkoutSchedule = new RecurringWorkoutSchedule(
+                BenchmarkFixtures.stub(RecurringWorkoutRepository.class, Map.of("findActiveByUserId", args -> rules)),
+                BenchmarkFixtures.stub(UserHasWorkoutsRepository.class, Map.of("findMaterializedOccurrences",
+                        args -> List.<RecurringOccurrenceDTO>of())));
+        List<WorkoutStatsTotalsDTO> totals = List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 1200L, 300L),
+                new WorkoutStatsTotalsDTO(WorkoutType.CARDIO, 800L, 450L),
+                new WorkoutStatsTotalsDTO(WorkoutType.MOBILITY, 150L, 90L));
+        WorkoutAnalyticsRepository workoutAnalyticsRepository = BenchmarkFixtures.stub(WorkoutAnalyticsRepository.class,
+                Map.of("totalsByWorkoutType", args -> totals, "totalsByWorkoutTypeFrom", args -> totals));
+        userService = new UserService(null, null, null, workoutAnalyticsRepository, workoutStatsRollup,
+                null, recurringWorkoutSchedule, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public void foldScheduledIntoRollup() {
+        workoutStatsRollup.scheduled(schedules);
+    }
+
+    @Benchmark
+    public long countPendingRecurringOccurrences() {
+        return recurringWorkoutSchedule.countPendingOccurrences(1L,
+                BenchmarkFixtures.NOW.toLocalDate().minusDays(365), BenchmarkFixtures.NOW.toLocalDate());
+    }
+
+    @Benchmark
+    public WorkoutCompletionDTO workoutCompletion() {
+        return userService.getWorkoutCompletion(1L, 91);
+    }
+
+    @Benchmark
+    public Map<WorkoutType, Long> workoutFavourite() {
+        return userService.getWorkoutFavourite(1L, null);
+    }
+}
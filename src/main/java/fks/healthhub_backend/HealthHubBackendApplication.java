@@ -2,8 +2,10 @@ package fks.healthhub_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HealthHubBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,128 @@
+package fks.healthhub_backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits only as many API requests as the connection pool can serve at once. With virtual threads Tomcat no
+ * longer caps concurrency, so surplus requests wait here on a fair semaphore instead of piling up on Hikari's
+ * connection timeout, and are answered with 503 once the queue wait is exceeded. Only API paths that borrow a
+ * JDBC connection are limited; actuator endpoints and the exercise catalog, which is served from memory, are
+ * excluded so health checks and scrapes never queue behind database work. Async requests hold their
+ * permit until the async processing completes; their re-dispatches are not filtered again.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "healthhub.connection-limiter.enabled", matchIfMissing = true)
+public class ConnectionPoolLimitFilter extends OncePerRequestFilter {
+    private final Semaphore permits;
+    private final Duration queueTimeout;
+    private final List<String> excludedPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public ConnectionPoolLimitFilter(MeterRegistry meterRegistry,
+                                     @Value("${healthhub.connection-limiter.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                                     @Value("${healthhub.connection-limiter.queue-timeout:5s}") Duration queueTimeout,
+                                     @Value("${healthhub.connection-limiter.excluded-paths:/actuator/**,/api/exercise/**}") List<String> excludedPaths) {
+        this.permits = new Semaphore(permits, true);
+        this.queueTimeout = queueTimeout;
+        this.excludedPaths = List.copyOf(excludedPaths);
+        Gauge.builder("healthhub.connection.limiter.queued", this.permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        Gauge.builder("healthhub.connection.limiter.available", this.permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || excludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, queueTimeout.toSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        Runnable release = releaseOnce();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private Runnable releaseOnce() {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * Keeps the permit of an async request, such as a streamed NDJSON export, until the response is finished
+     * rather than until the first dispatch returns, since the stream still holds its connection meanwhile.
+     */
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
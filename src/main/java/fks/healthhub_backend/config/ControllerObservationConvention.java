@@ -0,0 +1,25 @@
+package fks.healthhub_backend.config;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds the controller class and handler method to {@code http.server.requests}, next to the route template. The
+ * handler goes into its own key because {@code method} already holds the HTTP verb.
+ */
+public class ControllerObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        KeyValues keyValues = super.getLowCardinalityKeyValues(context);
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return keyValues.and("controller", handlerMethod.getBeanType().getSimpleName(),
+                    "handler", handlerMethod.getMethod().getName());
+        }
+        return keyValues.and("controller", "none", "handler", "none");
+    }
+}
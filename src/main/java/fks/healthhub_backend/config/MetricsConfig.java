@@ -0,0 +1,45 @@
+package fks.healthhub_backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(StatementBudgetProperties.class)
+public class MetricsConfig implements WebMvcConfigurer {
+    private final RequestStatistics requestStatistics;
+    private final StatementBudgetProperties statementBudgetProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricsConfig(RequestStatistics requestStatistics, StatementBudgetProperties statementBudgetProperties,
+                         MeterRegistry meterRegistry) {
+        this.requestStatistics = requestStatistics;
+        this.statementBudgetProperties = statementBudgetProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, requestStatistics);
+            properties.put(AvailableSettings.INTERCEPTOR, requestStatistics);
+        };
+    }
+
+    @Bean
+    public ControllerObservationConvention controllerObservationConvention() {
+        return new ControllerObservationConvention();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestStatisticsInterceptor(requestStatistics, statementBudgetProperties, meterRegistry));
+    }
+}
@@ -0,0 +1,116 @@
+package fks.healthhub_backend.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Counts the JDBC statements prepared and the entities loaded by the current request. Hibernate's own
+ * {@code Statistics} are session-factory wide, so concurrent requests cannot be told apart there; this
+ * collector is registered as statement inspector and interceptor and counts into a thread-bound scope.
+ * A scope may carry a statement budget; the repeated SQL shape is reported when it is exceeded.
+ */
+@Component
+public class RequestStatistics implements StatementInspector, Interceptor {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    public Counts begin() {
+        return begin(null, Integer.MAX_VALUE, false);
+    }
+
+    public Counts begin(String name, int budget, boolean failOnExceed) {
+        Counts counts = new Counts(name, budget, failOnExceed);
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public Counts end() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+            counts.statementsBySql.merge(sql, 1, Integer::sum);
+            if (counts.failOnExceed && counts.exceeded()) {
+                counts.failOnExceed = false;
+                throw new StatementBudgetExceededException(counts.describe());
+            }
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.entitiesLoaded++;
+        }
+        return false;
+    }
+
+    static String shape(String sql) {
+        return sql.replaceAll("\\s+", " ")
+                .replaceAll("'(?:[^']|'')*'", "?")
+                .replaceAll("\\b\\d+\\b", "?")
+                .replaceAll("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)", "(?, ...)")
+                .trim();
+    }
+
+    public static final class Counts {
+        private final String name;
+        private final int budget;
+        private final Map<String, Integer> statementsBySql = new HashMap<>();
+        private boolean failOnExceed;
+        private int statements;
+        private int entitiesLoaded;
+
+        private Counts(String name, int budget, boolean failOnExceed) {
+            this.name = name;
+            this.budget = budget;
+            this.failOnExceed = failOnExceed;
+        }
+
+        public int statements() {
+            return statements;
+        }
+
+        public int entitiesLoaded() {
+            return entitiesLoaded;
+        }
+
+        public int budget() {
+            return budget;
+        }
+
+        public boolean exceeded() {
+            return statements > budget;
+        }
+
+        public Optional<Map.Entry<String, Integer>> mostRepeatedShape() {
+            Map<String, Integer> shapes = new HashMap<>();
+            statementsBySql.forEach((sql, count) -> shapes.merge(shape(sql), count, Integer::sum));
+            return shapes.entrySet().stream().max(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+        }
+
+        public String describe() {
+            String summary = (name != null ? name : "request") + " ran " + statements + " statements (budget " + budget + ")";
+            return mostRepeatedShape()
+                    .map(shape -> summary + ", most repeated " + shape.getValue() + "x: " + shape.getKey())
+                    .orElse(summary);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fks.healthhub_backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the statements and entity loads of each controller call as distribution summaries tagged like
+ * {@code http.server.requests}, so a slow route can be matched to the queries it runs, and enforces the
+ * configured statement budget of the handler.
+ */
+@Slf4j
+public class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+    private final RequestStatistics requestStatistics;
+    private final StatementBudgetProperties statementBudgetProperties;
+    private final MeterRegistry meterRegistry;
+
+    public RequestStatisticsInterceptor(RequestStatistics requestStatistics, StatementBudgetProperties statementBudgetProperties,
+                                        MeterRegistry meterRegistry) {
+        this.requestStatistics = requestStatistics;
+        this.statementBudgetProperties = statementBudgetProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && request.getDispatcherType() == DispatcherType.REQUEST) {
+            StatementBudgetProperties.Mode mode = statementBudgetProperties.getMode();
+            String endpoint = endpoint(handlerMethod);
+            int budget = mode == StatementBudgetProperties.Mode.OFF
+                    ? Integer.MAX_VALUE
+                    : statementBudgetProperties.budgetFor(endpoint);
+            requestStatistics.begin(endpoint, budget, mode == StatementBudgetProperties.Mode.FAIL);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        requestStatistics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestStatistics.Counts counts = requestStatistics.end();
+        if (counts == null || !(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of(
+                "controller", handlerMethod.getBeanType().getSimpleName(),
+                "handler", handlerMethod.getMethod().getName(),
+                "method", request.getMethod(),
+                "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+        meterRegistry.summary("healthhub.request.statements", tags).record(counts.statements());
+        meterRegistry.summary("healthhub.request.entities.loaded", tags).record(counts.entitiesLoaded());
+        if (counts.exceeded()) {
+            meterRegistry.counter("healthhub.request.statement.budget.exceeded", tags).increment();
+            log.warn("Statement budget exceeded: {}", counts.describe());
+        }
+    }
+
+    private static String endpoint(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+}
@@ -0,0 +1,27 @@
+package fks.healthhub_backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size limit and time to live of each Hibernate second-level cache region, keyed by region name.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "healthhub.second-level-cache")
+public class SecondLevelCacheProperties {
+    private boolean enabled = true;
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maximumSize = 1000;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,35 @@
+package fks.healthhub_backend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past ids that were handed out while the tables still used identity
+ * columns, so the first sequence block never collides with existing rows.
+ */
+@Component
+public class SequenceAlignmentRunner implements ApplicationRunner {
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "user_has_workouts", "user_has_workouts_seq",
+            "workout_has_exercises", "workout_has_exercises_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SequenceAlignmentRunner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SEQUENCES.forEach((table, sequence) -> jdbcTemplate.queryForList(
+                "SELECT setval('" + sequence + "', m.max_id) " +
+                "FROM (SELECT MAX(id) AS max_id FROM " + table + ") m " +
+                "WHERE m.max_id > (SELECT last_value FROM " + sequence + ")"));
+    }
+}
@@ -0,0 +1,12 @@
+package fks.healthhub_backend.config;
+
+import java.io.Serial;
+
+public class StatementBudgetExceededException extends IllegalStateException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package fks.healthhub_backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statement budgets per controller method, keyed as {@code UserController.getUser}; handlers without an entry
+ * use the default budget.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "healthhub.statement-budget")
+public class StatementBudgetProperties {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private Mode mode = Mode.LOG;
+    private int defaultBudget = 25;
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    public int budgetFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultBudget);
+    }
+}
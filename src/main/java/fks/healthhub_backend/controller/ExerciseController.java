@@ -1,15 +1,21 @@
 package fks.healthhub_backend.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import fks.healthhub_backend.dto.ExerciseSearchResultDTO;
 import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseDifficulty;
 import fks.healthhub_backend.model.MuscleGroup;
+import fks.healthhub_backend.service.ExerciseFacetIndex;
 import fks.healthhub_backend.service.ExerciseService;
+import fks.healthhub_backend.service.ResourceVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @CrossOrigin
@@ -23,15 +29,20 @@ public class ExerciseController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getExercise(@PathVariable Long id) {
-        JsonNode exercise = exerciseService.getExercise(id);
-        return new ResponseEntity<>(exercise, HttpStatus.OK);
+    public ResponseEntity<byte[]> getExercise(@PathVariable Long id, WebRequest request) {
+        byte[] exercise = exerciseService.getExercise(id);
+        if (request.checkNotModified(ResourceVersion.eTag(exercise))) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(exercise);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Exercise>> allExercises() {
-        List<Exercise> exercises = exerciseService.getAllExercises();
-        return new ResponseEntity<>(exercises, HttpStatus.OK);
+    public ResponseEntity<byte[]> allExercises(@RequestParam(defaultValue = "50") int limit,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "id") String sort) {
+        byte[] exercises = exerciseService.getAllExercises(limit, cursor, sort);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(exercises);
     }
 
     @GetMapping("/muscle-groups")
@@ -41,14 +52,23 @@ public class ExerciseController {
     }
 
     @GetMapping("/exercises-by-muscle-group")
-    public ResponseEntity<List<Exercise>> getExercisesByMuscleGroup(@RequestParam MuscleGroup muscleGroup) {
-        List<Exercise> exercises = exerciseService.getExercisesByMuscleGroup(muscleGroup);
+    public ResponseEntity<ExerciseSearchResultDTO> getExercisesByMuscleGroup(
+            @RequestParam Set<MuscleGroup> muscleGroup,
+            @RequestParam(defaultValue = "ANY") ExerciseFacetIndex.Match match,
+            @RequestParam(required = false) Set<ExerciseDifficulty> difficulty) {
+        ExerciseSearchResultDTO exercises = exerciseService.getExercisesByMuscleGroup(muscleGroup, match, difficulty);
         return new ResponseEntity<>(exercises, HttpStatus.OK);
     }
 
     @GetMapping("/exercises-by-title")
-    public ResponseEntity<List<Exercise>> getExercisesByTitle(@RequestParam String title) {
-        List<Exercise> exercises = exerciseService.getExercisesByTitle(title);
+    public ResponseEntity<List<Exercise>> getExercisesByTitle(@RequestParam String title, @RequestParam(defaultValue = "20") int limit) {
+        List<Exercise> exercises = exerciseService.getExercisesByTitle(title, limit);
         return new ResponseEntity<>(exercises, HttpStatus.OK);
     }
+
+    @GetMapping("/title-suggestions")
+    public ResponseEntity<List<String>> getExerciseTitleSuggestions(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        List<String> suggestions = exerciseService.getExerciseTitleSuggestions(prefix, limit);
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
 }
@@ -1,18 +1,32 @@
 package fks.healthhub_backend.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import fks.healthhub_backend.dto.BulkScheduleResultDTO;
+import fks.healthhub_backend.dto.CompletionUpdateDTO;
+import fks.healthhub_backend.dto.OccurrenceUpdateDTO;
+import fks.healthhub_backend.dto.PageDTO;
 import fks.healthhub_backend.dto.UserDTO;
 import fks.healthhub_backend.dto.UserHasWorkoutsDTO;
+import fks.healthhub_backend.dto.WorkoutCompletionDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
 import fks.healthhub_backend.model.User;
 import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.service.ResourceVersion;
 import fks.healthhub_backend.service.UserService;
+import fks.healthhub_backend.service.WeekCalendar;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @CrossOrigin
@@ -26,41 +40,82 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUser(@PathVariable Long id) {
-        JsonNode user = userService.getUser(id);
+    public ResponseEntity<User> getUser(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = userService.getUserVersion(id);
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        User user = userService.getUser(id);
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
+    public ResponseEntity<PageDTO<UserDTO>> getAllUsers(@RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "id") String sort) {
+        PageDTO<UserDTO> users = userService.getAllUsers(limit, cursor, sort);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/username-available")
+    public ResponseEntity<Boolean> isUsernameAvailable(@RequestParam String username) {
+        boolean available = userService.isUsernameAvailable(username);
+        return new ResponseEntity<>(available, HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody users = userService::exportUsers;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(users);
+    }
+
+    @GetMapping("/scheduled-workouts/export")
+    public ResponseEntity<StreamingResponseBody> exportScheduledWorkouts() {
+        StreamingResponseBody scheduledWorkouts = userService::exportScheduledWorkouts;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(scheduledWorkouts);
+    }
+
     @GetMapping("/{id}/scheduled-workouts")
-    public ResponseEntity<JsonNode> getScheduledWorkout(@PathVariable Long id) {
-        JsonNode workout = userService.getScheduledWorkouts(id);
+    public ResponseEntity<List<UserHasWorkouts>> getScheduledWorkout(@PathVariable Long id) {
+        List<UserHasWorkouts> workout = userService.getScheduledWorkouts(id);
         return new ResponseEntity<>(workout, HttpStatus.OK);
     }
 
     @GetMapping("/{id}/scheduled-workouts-for-week")
-    public ResponseEntity<JsonNode> getScheduledWorkoutsForWeek(@PathVariable Long id, @RequestParam("date") ZonedDateTime date) {
-        JsonNode scheduledWorkoutsForWeek = userService.getScheduledWorkoutsForWeek(id, date);
-        return new ResponseEntity<>(scheduledWorkoutsForWeek, HttpStatus.OK);
+    public ResponseEntity<byte[]> getScheduledWorkoutsForWeek(@PathVariable Long id, @RequestParam("date") ZonedDateTime date,
+                                                              WebRequest request) {
+        WeekCalendar scheduledWorkoutsForWeek = userService.getScheduledWorkoutsForWeek(id, date);
+        ResourceVersion version = scheduledWorkoutsForWeek.version();
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(scheduledWorkoutsForWeek.json());
     }
 
     @GetMapping("/{id}/workout-completion")
-    public ResponseEntity<JsonNode> getWorkoutCompletion(@PathVariable Long id, @RequestParam(defaultValue = "91") int days) {
-        JsonNode completion = userService.getWorkoutCompletion(id, days);
+    public ResponseEntity<WorkoutCompletionDTO> getWorkoutCompletion(@PathVariable Long id, @RequestParam(defaultValue = "91") int days) {
+        WorkoutCompletionDTO completion = userService.getWorkoutCompletion(id, days);
         return new ResponseEntity<>(completion, HttpStatus.OK);
     }
 
     @GetMapping("/{id}/workout-favourite")
-    public ResponseEntity<JsonNode> getWorkoutFavourite(@PathVariable Long id) {
-        JsonNode favourites = userService.getWorkoutFavourite(id);
+    public ResponseEntity<Map<WorkoutType, Long>> getWorkoutFavourite(@PathVariable Long id, @RequestParam(required = false) Integer days) {
+        Map<WorkoutType, Long> favourites = userService.getWorkoutFavourite(id, days);
         return new ResponseEntity<>(favourites, HttpStatus.OK);
     }
 
+    @PostMapping("/workout-stats/rebuild")
+    public ResponseEntity<Void> rebuildWorkoutStats() {
+        userService.rebuildWorkoutStats();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/workout-stats/rebuild")
+    public ResponseEntity<Void> rebuildWorkoutStats(@PathVariable Long id) {
+        userService.rebuildWorkoutStats(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/")
     public ResponseEntity<Long> createUser(@RequestBody User user) {
         userService.createUser(user);
@@ -79,16 +134,62 @@ public class UserController {
                 workout.getScheduledAt()
         );
 
-        if (result instanceof List) {
-            List<UserHasWorkouts> scheduledWorkouts = (List<UserHasWorkouts>) result;
-            List<Long> ids = scheduledWorkouts.stream().map(UserHasWorkouts::getId).toList();
-            return new ResponseEntity<>(ids, HttpStatus.CREATED);
+        if (result instanceof RecurringWorkout recurringWorkout) {
+            return new ResponseEntity<>(recurringWorkout.getId(), HttpStatus.CREATED);
         } else {
             UserHasWorkouts scheduledWorkout = (UserHasWorkouts) result;
             return new ResponseEntity<>(scheduledWorkout.getId(), HttpStatus.CREATED);
         }
     }
 
+    @PostMapping("/scheduled-workouts/bulk")
+    public ResponseEntity<List<BulkScheduleResultDTO>> createScheduledWorkouts(@RequestBody List<UserHasWorkoutsDTO> workouts) {
+        List<BulkScheduleResultDTO> results = userService.createScheduledWorkouts(workouts);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @PutMapping("/recurring-workouts/{id}/occurrences/{date}")
+    public ResponseEntity<Long> updateRecurringOccurrence(@PathVariable Long id,
+                                                          @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                          @RequestBody(required = false) OccurrenceUpdateDTO update) {
+        UserHasWorkouts occurrence = userService.updateRecurringOccurrence(id, date, update);
+        return ResponseEntity.ok().body(occurrence.getId());
+    }
+
+    @DeleteMapping("/recurring-workouts/{id}/occurrences/{date}")
+    public ResponseEntity<Void> skipRecurringOccurrence(@PathVariable Long id,
+                                                        @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        userService.skipRecurringOccurrence(id, date);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/scheduled-workouts/completion")
+    public ResponseEntity<Integer> updateCompletion(@RequestBody CompletionUpdateDTO update) {
+        int updated = userService.updateCompletion(update);
+        return ResponseEntity.ok().body(updated);
+    }
+
+    @PutMapping("/scheduled-workouts/{userHasWorkoutsId}/completed")
+    public ResponseEntity<Void> setCompleted(@PathVariable Long userHasWorkoutsId, @RequestParam boolean completed) {
+        userService.bufferCompletion(userHasWorkoutsId, completed);
+        return ResponseEntity.accepted().build();
+    }
+
+    @DeleteMapping("/recurring-workouts/{id}")
+    public ResponseEntity<Void> cancelRecurringWorkout(@PathVariable Long id,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        userService.cancelRecurringWorkout(id, from);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/scheduled-workouts")
+    public ResponseEntity<Void> cancelScheduledWorkouts(@PathVariable Long id,
+                                                        @RequestParam("from") ZonedDateTime from,
+                                                        @RequestParam("to") ZonedDateTime to) {
+        userService.cancelScheduledWorkouts(id, from, to);
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Long> updateUser(@PathVariable Long id, @RequestBody User user) {
         userService.updateUser(id, user);
@@ -1,13 +1,19 @@
 package fks.healthhub_backend.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import fks.healthhub_backend.dto.PageDTO;
+import fks.healthhub_backend.dto.WorkoutDTO;
+import fks.healthhub_backend.dto.WorkoutPatchDTO;
 import fks.healthhub_backend.model.Workout;
 import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.service.ResourceVersion;
 import fks.healthhub_backend.service.WorkoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,17 +29,29 @@ public class WorkoutController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getWorkout(@PathVariable Long id) {
-        JsonNode workout = workoutService.getWorkout(id);
+    public ResponseEntity<WorkoutDTO> getWorkout(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = workoutService.getWorkoutVersion(id);
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        WorkoutDTO workout = workoutService.getWorkout(id);
         return new ResponseEntity<>(workout, HttpStatus.OK);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Workout>> allWorkouts() {
-        List<Workout> workouts = workoutService.getAllWorkouts();
+    public ResponseEntity<PageDTO<Workout>> allWorkouts(@RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "id") String sort) {
+        PageDTO<Workout> workouts = workoutService.getAllWorkouts(limit, cursor, sort);
         return new ResponseEntity<>(workouts, HttpStatus.OK);
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkouts() {
+        StreamingResponseBody workouts = workoutService::exportWorkouts;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(workouts);
+    }
+
     @GetMapping("/user-workouts")
     public ResponseEntity<List<Workout>> allUserWorkouts(@RequestParam Long userId) {
         List<Workout> workouts = workoutService.getAllWorkoutsByUser(userId);
@@ -58,6 +76,12 @@ public class WorkoutController {
         return ResponseEntity.ok().body(id);
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Long> patchWorkout(@PathVariable Long id, @RequestBody WorkoutPatchDTO patch) {
+        workoutService.patchWorkout(id, patch);
+        return ResponseEntity.ok().body(id);
+    }
+
     @DeleteMapping("/{workoutId}/exercises/{exerciseId}")
     public ResponseEntity<Void> deleteWorkoutExercise(@PathVariable Long workoutId, @PathVariable Long exerciseId) {
         workoutService.deleteWorkoutExercise(workoutId, exerciseId);
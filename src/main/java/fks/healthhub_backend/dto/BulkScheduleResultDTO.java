@@ -0,0 +1,18 @@
+package fks.healthhub_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkScheduleResultDTO {
+    private int index;
+    private boolean created;
+    private Long id;
+    private Long recurringWorkoutId;
+    private String error;
+}
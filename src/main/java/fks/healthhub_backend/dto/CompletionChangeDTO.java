@@ -0,0 +1,20 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.WorkoutType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionChangeDTO {
+    private Long id;
+    private Long userId;
+    private ZonedDateTime scheduledAt;
+    private WorkoutType workoutType;
+}
@@ -0,0 +1,17 @@
+package fks.healthhub_backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class CompletionUpdateDTO {
+    private List<Long> ids;
+    private Long userId;
+    private ZonedDateTime from;
+    private ZonedDateTime to;
+    private boolean completed;
+}
@@ -0,0 +1,22 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseDifficulty;
+import fks.healthhub_backend.model.MuscleGroup;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExerciseSearchResultDTO {
+    private List<Exercise> exercises;
+    private Map<MuscleGroup, Integer> muscleGroupCounts;
+    private Map<ExerciseDifficulty, Integer> difficultyCounts;
+}
@@ -0,0 +1,13 @@
+package fks.healthhub_backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@Setter
+public class OccurrenceUpdateDTO {
+    private Boolean completed;
+    private ZonedDateTime scheduledAt;
+}
@@ -0,0 +1,17 @@
+package fks.healthhub_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringOccurrenceDTO {
+    private Long recurringWorkoutId;
+    private LocalDate occurrenceDate;
+}
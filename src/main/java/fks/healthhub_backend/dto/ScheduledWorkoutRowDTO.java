@@ -0,0 +1,20 @@
+package fks.healthhub_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledWorkoutRowDTO {
+    private Long id;
+    private Long userId;
+    private Long workoutId;
+    private ZonedDateTime scheduledAt;
+    private Boolean completed;
+}
@@ -0,0 +1,27 @@
+package fks.healthhub_backend.dto;
+
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+public class VersionDTO {
+    private final long count;
+    private final List<ZonedDateTime> timestamps;
+
+    public VersionDTO(Long count, ZonedDateTime updatedAt, ZonedDateTime childrenUpdatedAt, ZonedDateTime relatedUpdatedAt) {
+        this(count, new ZonedDateTime[]{updatedAt, childrenUpdatedAt, relatedUpdatedAt});
+    }
+
+    public VersionDTO(Long count, ZonedDateTime updatedAt, ZonedDateTime childrenUpdatedAt, ZonedDateTime relatedUpdatedAt,
+                      ZonedDateTime ownersUpdatedAt) {
+        this(count, new ZonedDateTime[]{updatedAt, childrenUpdatedAt, relatedUpdatedAt, ownersUpdatedAt});
+    }
+
+    private VersionDTO(Long count, ZonedDateTime[] timestamps) {
+        this.count = count != null ? count : 0;
+        this.timestamps = Arrays.asList(timestamps);
+    }
+}
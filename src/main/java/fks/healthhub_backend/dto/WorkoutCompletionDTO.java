@@ -0,0 +1,16 @@
+package fks.healthhub_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkoutCompletionDTO {
+    private long complete;
+    private long incomplete;
+    private int percentage;
+}
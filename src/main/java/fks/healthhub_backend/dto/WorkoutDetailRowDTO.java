@@ -0,0 +1,25 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.WorkoutType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkoutDetailRowDTO {
+    private Long workoutId;
+    private String title;
+    private String description;
+    private WorkoutType workoutType;
+    private Long userId;
+    private String username;
+    private Long workoutHasExercisesId;
+    private Integer sets;
+    private Integer repetitions;
+    private Double weight;
+    private Integer restTime;
+}
@@ -0,0 +1,15 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.WorkoutType;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class WorkoutPatchDTO {
+    private String title;
+    private String description;
+    private Integer duration;
+    private WorkoutType workoutType;
+    private Long userId;
+}
@@ -0,0 +1,17 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.WorkoutType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkoutStatsTotalsDTO {
+    private WorkoutType workoutType;
+    private Long completed;
+    private Long incomplete;
+}
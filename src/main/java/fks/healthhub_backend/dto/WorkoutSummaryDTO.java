@@ -0,0 +1,24 @@
+package fks.healthhub_backend.dto;
+
+import fks.healthhub_backend.model.WorkoutType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkoutSummaryDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private int duration;
+    private WorkoutType workoutType;
+    private Long userId;
+    private ZonedDateTime createdAt;
+    private ZonedDateTime updatedAt;
+}
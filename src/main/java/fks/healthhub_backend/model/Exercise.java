@@ -1,11 +1,14 @@
 package fks.healthhub_backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.ZonedDateTime;
 import java.util.HashSet;
@@ -16,6 +19,8 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercises")
+@EntityListeners(ExerciseChangeListener.class)
 @Table(name = "exercises")
 public class Exercise {
 
@@ -47,7 +52,15 @@ public class Exercise {
     @Column(name = "updated_at")
     private ZonedDateTime updatedAt = ZonedDateTime.now();
 
+    // bumped on every write, including edits that only touch muscleGroups, so the owner is always updated and
+    // ExerciseChangeListener sees the change
+    @Version
+    @JsonIgnore
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @ElementCollection(targetClass = MuscleGroup.class)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercise-muscle-groups")
     @CollectionTable(name = "exercise_muscle_groups", joinColumns = @JoinColumn(name = "exercise_id"),
             indexes = {@Index(name = "idx_exercise_id", columnList = "exercise_id"),
                     @Index(name = "idx_muscle_group", columnList = "muscle_group")})
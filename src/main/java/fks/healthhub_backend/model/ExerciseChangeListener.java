@@ -0,0 +1,21 @@
+package fks.healthhub_backend.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class ExerciseChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ExerciseChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void exerciseChanged(Exercise exercise) {
+        eventPublisher.publishEvent(new ExerciseChangedEvent(exercise.getId()));
+    }
+}
@@ -0,0 +1,4 @@
+package fks.healthhub_backend.model;
+
+public record ExerciseChangedEvent(Long exerciseId) {
+}
@@ -0,0 +1,117 @@
+package fks.healthhub_backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "recurring_workouts", indexes = @Index(name = "idx_recurring_workouts_user_id", columnList = "user_id"))
+public class RecurringWorkout {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurring_workouts_seq")
+    @SequenceGenerator(name = "recurring_workouts_seq", sequenceName = "recurring_workouts_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
+    @JsonIgnoreProperties("userHasWorkouts")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "workout_id", referencedColumnName = "id", nullable = false)
+    @JsonIgnoreProperties({"userHasWorkouts", "workoutHasExercises"})
+    private Workout workout;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "interval_weeks", nullable = false)
+    private int intervalWeeks = 1;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @ElementCollection
+    @CollectionTable(name = "recurring_workout_exceptions", joinColumns = @JoinColumn(name = "recurring_workout_id"))
+    @Column(name = "occurrence_date")
+    private Set<LocalDate> exceptions = new HashSet<>();
+
+    @NonNull
+    @Column(name = "created_at")
+    private ZonedDateTime createdAt = ZonedDateTime.now();
+
+    @NonNull
+    @Column(name = "updated_at")
+    private ZonedDateTime updatedAt = ZonedDateTime.now();
+
+    public boolean occursOn(LocalDate date) {
+        if (date.getDayOfWeek() != dayOfWeek || date.isBefore(firstOccurrence())
+                || (endDate != null && date.isAfter(endDate)) || exceptions.contains(date)) {
+            return false;
+        }
+        return ChronoUnit.WEEKS.between(firstOccurrence(), date) % intervalWeeks == 0;
+    }
+
+    public List<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        LocalDate first = firstOccurrence();
+        LocalDate last = endDate != null && endDate.isBefore(to) ? endDate : to;
+        List<LocalDate> occurrences = new ArrayList<>();
+        if (last.isBefore(first) || last.isBefore(from)) {
+            return occurrences;
+        }
+
+        LocalDate date = first;
+        if (from.isAfter(first)) {
+            long weeks = ChronoUnit.WEEKS.between(first, from);
+            date = first.plusWeeks(weeks - weeks % intervalWeeks);
+            if (date.isBefore(from)) {
+                date = date.plusWeeks(intervalWeeks);
+            }
+        }
+        for (; !date.isAfter(last); date = date.plusWeeks(intervalWeeks)) {
+            if (!exceptions.contains(date)) {
+                occurrences.add(date);
+            }
+        }
+        return occurrences;
+    }
+
+    private LocalDate firstOccurrence() {
+        return startDate.with(TemporalAdjusters.nextOrSame(dayOfWeek));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecurringWorkout that = (RecurringWorkout) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
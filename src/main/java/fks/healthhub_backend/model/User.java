@@ -7,6 +7,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.ZonedDateTime;
 import java.util.HashSet;
@@ -17,8 +19,15 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"))
+@NamedEntityGraph(name = "User.detail", attributeNodes = @NamedAttributeNode(value = "userHasWorkouts", subgraph = "userHasWorkouts"),
+        subgraphs = {
+                @NamedSubgraph(name = "userHasWorkouts", attributeNodes = @NamedAttributeNode(value = "workout", subgraph = "workout")),
+                @NamedSubgraph(name = "workout", attributeNodes = @NamedAttributeNode("user"))
+        })
 public class User {
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
 
     @Id
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
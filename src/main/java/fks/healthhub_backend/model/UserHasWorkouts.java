@@ -1,12 +1,18 @@
 package fks.healthhub_backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 
@@ -14,19 +20,26 @@ import java.util.Objects;
 @Getter
 @Setter
 @Entity
-@Table(name = "user_has_workouts")
+@DynamicUpdate
+@Table(name = "user_has_workouts", uniqueConstraints = @UniqueConstraint(name = "uk_user_has_workouts_occurrence",
+        columnNames = {"recurring_workout_id", "occurrence_date"}))
+@NamedEntityGraph(name = "UserHasWorkouts.schedule", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode(value = "workout", subgraph = "workout")
+}, subgraphs = @NamedSubgraph(name = "workout", attributeNodes = @NamedAttributeNode("user")))
 public class UserHasWorkouts {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_has_workouts_seq")
+    @SequenceGenerator(name = "user_has_workouts_seq", sequenceName = "user_has_workouts_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     @JsonIgnoreProperties("userHasWorkouts")
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workout_id", referencedColumnName = "id", nullable = false)
     @JsonIgnoreProperties({"userHasWorkouts", "workoutHasExercises"})
     private Workout workout;
@@ -37,6 +50,15 @@ public class UserHasWorkouts {
     @Column(name = "completed", nullable = false)
     private Boolean completed;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recurring_workout_id", referencedColumnName = "id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    @JsonIgnore
+    private RecurringWorkout recurringWorkout;
+
+    @Column(name = "occurrence_date")
+    private LocalDate occurrenceDate;
+
     @NonNull
     @Column(name = "created_at")
     private ZonedDateTime createdAt = ZonedDateTime.now();
@@ -45,16 +67,21 @@ public class UserHasWorkouts {
     @Column(name = "updated_at")
     private ZonedDateTime updatedAt = ZonedDateTime.now();
 
+    @JsonProperty("recurringWorkoutId")
+    public Long recurringWorkoutId() {
+        return recurringWorkout != null ? recurringWorkout.getId() : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UserHasWorkouts that = (UserHasWorkouts) o;
-        return Objects.equals(id, that.id);
+        return id != null && Objects.equals(id, that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return getClass().hashCode();
     }
 }
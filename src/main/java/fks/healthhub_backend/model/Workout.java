@@ -7,6 +7,7 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.ZonedDateTime;
 import java.util.HashSet;
@@ -17,7 +18,9 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @Table(name = "workouts")
+@NamedEntityGraph(name = "Workout.list", attributeNodes = @NamedAttributeNode("user"))
 public class Workout {
 
     @Id
@@ -48,16 +51,16 @@ public class Workout {
     @Column(name = "updated_at")
     private ZonedDateTime updatedAt;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     @JsonIgnoreProperties("userHasWorkouts")
     private User user;
 
-    @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("workout")
     private Set<WorkoutHasExercises> workoutHasExercises = new HashSet<>();
 
-    @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("workout")
     private Set<UserHasWorkouts> userHasWorkouts = new HashSet<>();
 
@@ -19,11 +19,12 @@ import java.util.Objects;
 public class WorkoutHasExercises {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workout_has_exercises_seq")
+    @SequenceGenerator(name = "workout_has_exercises_seq", sequenceName = "workout_has_exercises_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workout_id", referencedColumnName = "id")
     @JsonIgnoreProperties("workoutHasExercises")
     private Workout workout;
@@ -61,11 +62,11 @@ public class WorkoutHasExercises {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         WorkoutHasExercises workoutHasExercises = (WorkoutHasExercises) o;
-        return Objects.equals(id, workoutHasExercises.id);
+        return id != null && Objects.equals(id, workoutHasExercises.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return getClass().hashCode();
     }
 }
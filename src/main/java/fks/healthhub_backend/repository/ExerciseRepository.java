@@ -1,25 +1,30 @@
 package fks.healthhub_backend.repository;
 
 import fks.healthhub_backend.model.Exercise;
-import fks.healthhub_backend.model.MuscleGroup;
+import jakarta.persistence.QueryHint;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 @Repository
 @Qualifier("Exercise")
 public interface ExerciseRepository extends JpaRepository<Exercise, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT e FROM Exercise e WHERE e.id IN :ids")
     List<Exercise> findByIdIn(@Param("ids") List<Long> ids);
 
-    @Query("SELECT e FROM Exercise e JOIN FETCH e.muscleGroups mg WHERE mg = :muscleGroup")
-    List<Exercise> findAllByMuscleGroup(@Param("muscleGroup") MuscleGroup muscleGroup);
+    @Query("SELECT DISTINCT e FROM Exercise e LEFT JOIN FETCH e.muscleGroups")
+    List<Exercise> findAllWithMuscleGroups();
 
-    @Query("SELECT e FROM Exercise e WHERE LOWER(e.title) LIKE LOWER(CONCAT('%', :title, '%'))")
-    List<Exercise> findByTitleContaining(@Param("title") String title);
+    @Query("SELECT e FROM Exercise e LEFT JOIN FETCH e.muscleGroups WHERE e.id = :id")
+    Optional<Exercise> findByIdWithMuscleGroups(@Param("id") Long id);
 }
\ No newline at end of file
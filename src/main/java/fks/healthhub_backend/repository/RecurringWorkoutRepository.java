@@ -0,0 +1,52 @@
+package fks.healthhub_backend.repository;
+
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@Qualifier("RecurringWorkout")
+public interface RecurringWorkoutRepository extends JpaRepository<RecurringWorkout, Long> {
+
+    @Query("SELECT DISTINCT r FROM RecurringWorkout r JOIN FETCH r.user JOIN FETCH r.workout w LEFT JOIN FETCH w.user " +
+            "LEFT JOIN FETCH r.exceptions " +
+            "WHERE r.user.id = :userId AND r.startDate <= :to AND (r.endDate IS NULL OR r.endDate >= :from)")
+    List<RecurringWorkout> findActiveByUserId(@Param("userId") Long userId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    @Query("SELECT DISTINCT r FROM RecurringWorkout r LEFT JOIN FETCH r.exceptions " +
+            "WHERE r.user.id = :userId AND r.startDate <= :to AND (r.endDate IS NULL OR r.endDate >= :from)")
+    List<RecurringWorkout> findActiveWithExceptionsByUserId(@Param("userId") Long userId,
+                                                            @Param("from") LocalDate from,
+                                                            @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("UPDATE RecurringWorkout r SET r.updatedAt = :updatedAt WHERE r.id IN :ids")
+    int updateUpdatedAtByIdIn(@Param("ids") Collection<Long> ids, @Param("updatedAt") ZonedDateTime updatedAt);
+
+    @Query("SELECT new fks.healthhub_backend.dto.VersionDTO(COUNT(r), MAX(r.updatedAt), MAX(u.updatedAt), MAX(w.updatedAt), MAX(o.updatedAt)) " +
+            "FROM RecurringWorkout r JOIN r.user u JOIN r.workout w LEFT JOIN w.user o " +
+            "WHERE u.id = :userId AND r.startDate <= :to AND (r.endDate IS NULL OR r.endDate >= :from)")
+    VersionDTO findActiveVersionByUserId(@Param("userId") Long userId,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM RecurringWorkout r WHERE r.workout.id = :workoutId")
+    int deleteByWorkoutId(@Param("workoutId") Long workoutId);
+
+    @Query("SELECT DISTINCT r.user.id FROM RecurringWorkout r WHERE r.workout.id = :workoutId")
+    Set<Long> findUserIdsByWorkoutId(@Param("workoutId") Long workoutId);
+}
@@ -1,21 +1,108 @@
 package fks.healthhub_backend.repository;
 
+import fks.healthhub_backend.dto.CompletionChangeDTO;
+import fks.healthhub_backend.dto.RecurringOccurrenceDTO;
+import fks.healthhub_backend.dto.ScheduledWorkoutRowDTO;
+import fks.healthhub_backend.dto.VersionDTO;
 import fks.healthhub_backend.model.UserHasWorkouts;
+import jakarta.persistence.QueryHint;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 @Qualifier("UserHasWorkouts")
 public interface UserHasWorkoutsRepository extends JpaRepository<UserHasWorkouts, Long> {
 
+    @EntityGraph("UserHasWorkouts.schedule")
     List<UserHasWorkouts> findByUserId(Long userId);
 
-    List<UserHasWorkouts> findByUserIdAndScheduledAtAfter(Long user_id, ZonedDateTime scheduledAt);
-
+    @EntityGraph("UserHasWorkouts.schedule")
     List<UserHasWorkouts> findByUserIdAndScheduledAtBetween(Long userId, ZonedDateTime start, ZonedDateTime end);
 
+    @Query("SELECT new fks.healthhub_backend.dto.VersionDTO(COUNT(uhw), MAX(uhw.updatedAt), MAX(u.updatedAt), MAX(w.updatedAt), MAX(o.updatedAt)) " +
+            "FROM UserHasWorkouts uhw JOIN uhw.user u JOIN uhw.workout w LEFT JOIN w.user o " +
+            "WHERE u.id = :userId AND (uhw.scheduledAt BETWEEN :start AND :end OR uhw.occurrenceDate BETWEEN :from AND :to)")
+    VersionDTO findWeekVersionByUserId(@Param("userId") Long userId,
+                                       @Param("start") ZonedDateTime start,
+                                       @Param("end") ZonedDateTime end,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    @Query("SELECT new fks.healthhub_backend.dto.RecurringOccurrenceDTO(uhw.recurringWorkout.id, uhw.occurrenceDate) " +
+            "FROM UserHasWorkouts uhw " +
+            "WHERE uhw.recurringWorkout.id IN :recurringWorkoutIds AND uhw.occurrenceDate BETWEEN :from AND :to")
+    List<RecurringOccurrenceDTO> findMaterializedOccurrences(@Param("recurringWorkoutIds") Collection<Long> recurringWorkoutIds,
+                                                             @Param("from") LocalDate from,
+                                                             @Param("to") LocalDate to);
+
+    Optional<UserHasWorkouts> findByRecurringWorkoutIdAndOccurrenceDate(Long recurringWorkoutId, LocalDate occurrenceDate);
+
+    @Query("SELECT DISTINCT uhw.user.id FROM UserHasWorkouts uhw WHERE uhw.workout.id = :workoutId")
+    Set<Long> findUserIdsByWorkoutId(@Param("workoutId") Long workoutId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new fks.healthhub_backend.dto.ScheduledWorkoutRowDTO(uhw.id, uhw.user.id, uhw.workout.id, uhw.scheduledAt, uhw.completed) " +
+            "FROM UserHasWorkouts uhw ORDER BY uhw.id")
+    Stream<ScheduledWorkoutRowDTO> streamAllRows();
+
+    @Modifying
+    @Query("DELETE FROM UserHasWorkouts uhw WHERE uhw.workout.id = :workoutId")
+    int deleteByWorkoutId(@Param("workoutId") Long workoutId);
+
+    @Modifying
+    @Query("DELETE FROM UserHasWorkouts uhw WHERE uhw.recurringWorkout.id = :recurringWorkoutId AND uhw.occurrenceDate >= :from")
+    int deleteByRecurringWorkoutIdFrom(@Param("recurringWorkoutId") Long recurringWorkoutId, @Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM UserHasWorkouts uhw WHERE uhw.user.id = :userId AND uhw.scheduledAt >= :from AND uhw.scheduledAt < :to")
+    int deleteByUserIdAndScheduledAtBetween(@Param("userId") Long userId,
+                                            @Param("from") ZonedDateTime from,
+                                            @Param("to") ZonedDateTime to);
+
+    @Modifying
+    @Query("UPDATE UserHasWorkouts uhw SET uhw.completed = :completed, uhw.updatedAt = :updatedAt " +
+            "WHERE uhw.id IN :ids AND uhw.completed <> :completed")
+    int updateCompletedByIdIn(@Param("ids") Collection<Long> ids,
+                              @Param("completed") boolean completed,
+                              @Param("updatedAt") ZonedDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE UserHasWorkouts uhw SET uhw.completed = :completed, uhw.updatedAt = :updatedAt " +
+            "WHERE uhw.user.id = :userId AND uhw.scheduledAt >= :from AND uhw.scheduledAt < :to AND uhw.completed <> :completed")
+    int updateCompletedByUserIdAndScheduledAtBetween(@Param("userId") Long userId,
+                                                     @Param("from") ZonedDateTime from,
+                                                     @Param("to") ZonedDateTime to,
+                                                     @Param("completed") boolean completed,
+                                                     @Param("updatedAt") ZonedDateTime updatedAt);
+
+    @Query("SELECT new fks.healthhub_backend.dto.CompletionChangeDTO(uhw.id, uhw.user.id, uhw.scheduledAt, w.workoutType) " +
+            "FROM UserHasWorkouts uhw JOIN uhw.workout w " +
+            "WHERE uhw.id IN :ids AND uhw.updatedAt = :updatedAt")
+    List<CompletionChangeDTO> findCompletionChangesByIdIn(@Param("ids") Collection<Long> ids,
+                                                          @Param("updatedAt") ZonedDateTime updatedAt);
+
+    @Query("SELECT new fks.healthhub_backend.dto.CompletionChangeDTO(uhw.id, uhw.user.id, uhw.scheduledAt, w.workoutType) " +
+            "FROM UserHasWorkouts uhw JOIN uhw.workout w " +
+            "WHERE uhw.user.id = :userId AND uhw.scheduledAt >= :from AND uhw.scheduledAt < :to AND uhw.updatedAt = :updatedAt")
+    List<CompletionChangeDTO> findCompletionChangesByUserIdAndScheduledAtBetween(@Param("userId") Long userId,
+                                                                               @Param("from") ZonedDateTime from,
+                                                                               @Param("to") ZonedDateTime to,
+                                                                               @Param("updatedAt") ZonedDateTime updatedAt);
+
 }
\ No newline at end of file
@@ -1,20 +1,57 @@
 package fks.healthhub_backend.repository;
 
+import fks.healthhub_backend.dto.UserDTO;
+import fks.healthhub_backend.dto.VersionDTO;
 import fks.healthhub_backend.model.User;
 import fks.healthhub_backend.model.Workout;
+import jakarta.persistence.QueryHint;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 @Qualifier("User")
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    User findByUsername(String username);
+    boolean existsByUsername(String username);
+
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    @EntityGraph("User.detail")
+    Optional<User> findDetailById(Long id);
+
+    @Query("SELECT new fks.healthhub_backend.dto.VersionDTO(COUNT(s), u.updatedAt, MAX(s.updatedAt), MAX(w.updatedAt), MAX(o.updatedAt)) " +
+            "FROM User u LEFT JOIN u.userHasWorkouts s LEFT JOIN s.workout w LEFT JOIN w.user o WHERE u.id = :id GROUP BY u.id, u.updatedAt")
+    Optional<VersionDTO> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT u FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<User> findPageOrderById(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.username > :username OR (u.username = :username AND u.id > :afterId) ORDER BY u.username, u.id")
+    List<User> findPageOrderByUsername(@Param("username") String username, @Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new fks.healthhub_backend.dto.UserDTO(u.id, u.username) FROM User u ORDER BY u.id")
+    Stream<UserDTO> streamAll();
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
+    @EntityGraph("Workout.list")
     @Query("SELECT w FROM Workout w JOIN w.user u WHERE u.id = :userId")
     List<Workout> findWorkoutsByUserId(Long userId);
 }
@@ -0,0 +1,91 @@
+package fks.healthhub_backend.repository;
+
+import fks.healthhub_backend.model.UserWorkoutStats;
+import jakarta.persistence.QueryHint;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+@Qualifier("UserWorkoutStats")
+public interface UserWorkoutStatsRepository extends JpaRepository<UserWorkoutStats, Long> {
+    String SUBTRACT_AGGREGATED = "INSERT INTO user_workout_stats (user_id, stat_date, workout_type, completed_count, incomplete_count) " +
+            "SELECT uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type, " +
+            "-COUNT(*) FILTER (WHERE uhw.completed), -COUNT(*) FILTER (WHERE uhw.completed IS NOT TRUE) " +
+            "FROM user_has_workouts uhw JOIN workouts w ON w.id = uhw.workout_id ";
+    String GROUP_AND_MERGE = "GROUP BY uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type " +
+            "ON CONFLICT ON CONSTRAINT uk_user_workout_stats_user_day_type DO UPDATE SET " +
+            "completed_count = user_workout_stats.completed_count + EXCLUDED.completed_count, " +
+            "incomplete_count = user_workout_stats.incomplete_count + EXCLUDED.incomplete_count";
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = "INSERT INTO user_workout_stats (user_id, stat_date, workout_type, completed_count, incomplete_count) " +
+            "VALUES (:userId, :statDate, :workoutType, :completed, :incomplete) " +
+            "ON CONFLICT ON CONSTRAINT uk_user_workout_stats_user_day_type DO UPDATE SET " +
+            "completed_count = user_workout_stats.completed_count + EXCLUDED.completed_count, " +
+            "incomplete_count = user_workout_stats.incomplete_count + EXCLUDED.incomplete_count",
+            nativeQuery = true)
+    void upsert(@Param("userId") Long userId,
+                @Param("statDate") LocalDate statDate,
+                @Param("workoutType") String workoutType,
+                @Param("completed") long completed,
+                @Param("incomplete") long incomplete);
+
+    @Modifying
+    @Query("DELETE FROM UserWorkoutStats s WHERE s.userId = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserWorkoutStats s")
+    void deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = "INSERT INTO user_workout_stats (user_id, stat_date, workout_type, completed_count, incomplete_count) " +
+            "SELECT uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type, " +
+            "COUNT(*) FILTER (WHERE uhw.completed), COUNT(*) FILTER (WHERE uhw.completed IS NOT TRUE) " +
+            "FROM user_has_workouts uhw JOIN workouts w ON w.id = uhw.workout_id " +
+            "WHERE uhw.user_id = :userId " +
+            "GROUP BY uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type",
+            nativeQuery = true)
+    int insertAggregatedByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = "INSERT INTO user_workout_stats (user_id, stat_date, workout_type, completed_count, incomplete_count) " +
+            "SELECT uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type, " +
+            "COUNT(*) FILTER (WHERE uhw.completed), COUNT(*) FILTER (WHERE uhw.completed IS NOT TRUE) " +
+            "FROM user_has_workouts uhw JOIN workouts w ON w.id = uhw.workout_id " +
+            "GROUP BY uhw.user_id, CAST(uhw.scheduled_at AT TIME ZONE 'UTC' AS date), w.workout_type",
+            nativeQuery = true)
+    int insertAggregated();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = SUBTRACT_AGGREGATED + "WHERE uhw.workout_id = :workoutId " + GROUP_AND_MERGE, nativeQuery = true)
+    int subtractAggregatedByWorkoutId(@Param("workoutId") Long workoutId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = SUBTRACT_AGGREGATED + "WHERE uhw.recurring_workout_id = :recurringWorkoutId AND uhw.occurrence_date >= :from " +
+            GROUP_AND_MERGE, nativeQuery = true)
+    int subtractAggregatedByRecurringWorkoutId(@Param("recurringWorkoutId") Long recurringWorkoutId, @Param("from") LocalDate from);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_workout_stats"))
+    @Query(value = SUBTRACT_AGGREGATED + "WHERE uhw.user_id = :userId AND uhw.scheduled_at >= :from AND uhw.scheduled_at < :to " +
+            GROUP_AND_MERGE, nativeQuery = true)
+    int subtractAggregatedByUserIdAndScheduledAtBetween(@Param("userId") Long userId,
+                                                        @Param("from") ZonedDateTime from,
+                                                        @Param("to") ZonedDateTime to);
+}
@@ -0,0 +1,29 @@
+package fks.healthhub_backend.repository;
+
+import fks.healthhub_backend.dto.WorkoutStatsTotalsDTO;
+import fks.healthhub_backend.model.UserWorkoutStats;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregate queries over the {@code user_workout_stats} rollup. Every method returns at most one row
+ * per workout type, read from a handful of daily rollup rows rather than from a user's full history.
+ */
+@org.springframework.stereotype.Repository
+public interface WorkoutAnalyticsRepository extends org.springframework.data.repository.Repository<UserWorkoutStats, Long> {
+
+    @Query("SELECT new fks.healthhub_backend.dto.WorkoutStatsTotalsDTO(s.workoutType, SUM(s.completedCount), SUM(s.incompleteCount)) " +
+            "FROM UserWorkoutStats s " +
+            "WHERE s.userId = :userId " +
+            "GROUP BY s.workoutType")
+    List<WorkoutStatsTotalsDTO> totalsByWorkoutType(@Param("userId") Long userId);
+
+    @Query("SELECT new fks.healthhub_backend.dto.WorkoutStatsTotalsDTO(s.workoutType, SUM(s.completedCount), SUM(s.incompleteCount)) " +
+            "FROM UserWorkoutStats s " +
+            "WHERE s.userId = :userId AND s.statDate >= :from " +
+            "GROUP BY s.workoutType")
+    List<WorkoutStatsTotalsDTO> totalsByWorkoutTypeFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+}
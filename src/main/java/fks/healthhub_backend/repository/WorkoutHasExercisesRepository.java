@@ -3,6 +3,9 @@ package fks.healthhub_backend.repository;
 import fks.healthhub_backend.model.WorkoutHasExercises;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,5 +15,7 @@ import java.util.Optional;
 public interface WorkoutHasExercisesRepository extends JpaRepository<WorkoutHasExercises, Long> {
     Optional<WorkoutHasExercises> findByWorkoutIdAndExerciseId(Long workoutId, Long exerciseId);
 
-    void deleteByWorkoutId(Long workoutId);
+    @Modifying
+    @Query("DELETE FROM WorkoutHasExercises whe WHERE whe.workout.id = :workoutId")
+    int deleteByWorkoutId(@Param("workoutId") Long workoutId);
 }
\ No newline at end of file
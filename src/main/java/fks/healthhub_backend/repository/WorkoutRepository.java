@@ -1,19 +1,62 @@
 package fks.healthhub_backend.repository;
 
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.dto.WorkoutDetailRowDTO;
+import fks.healthhub_backend.dto.WorkoutSummaryDTO;
 import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.model.WorkoutType;
+import jakarta.persistence.QueryHint;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 @Qualifier("Workout")
 public interface WorkoutRepository extends JpaRepository<Workout, Long> {
 
+    @EntityGraph("Workout.list")
     List<Workout> findWorkoutsByUserId(Long user_id);
 
-    @Query("SELECT w FROM Workout w LEFT JOIN FETCH w.workoutHasExercises WHERE w.id = :id")
-    Workout findByIdWithExercises(Long id);
+    @Query("SELECT DISTINCT w FROM Workout w LEFT JOIN FETCH w.workoutHasExercises WHERE w IN :workouts")
+    List<Workout> fetchWorkoutHasExercises(@Param("workouts") Collection<Workout> workouts);
+
+    @Query("SELECT DISTINCT w FROM Workout w LEFT JOIN FETCH w.userHasWorkouts uhw LEFT JOIN FETCH uhw.user WHERE w IN :workouts")
+    List<Workout> fetchUserHasWorkouts(@Param("workouts") Collection<Workout> workouts);
+
+    @Query("SELECT new fks.healthhub_backend.dto.VersionDTO(COUNT(whe), w.updatedAt, MAX(whe.updatedAt), u.updatedAt) " +
+            "FROM Workout w LEFT JOIN w.user u LEFT JOIN w.workoutHasExercises whe WHERE w.id = :id GROUP BY w.id, w.updatedAt, u.updatedAt")
+    Optional<VersionDTO> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT w.workoutType FROM Workout w WHERE w.id = :id")
+    Optional<WorkoutType> findWorkoutTypeById(@Param("id") Long id);
+
+    @Query("SELECT new fks.healthhub_backend.dto.WorkoutDetailRowDTO(w.id, w.title, w.description, w.workoutType, u.id, u.username, " +
+            "whe.id, whe.sets, whe.repetitions, whe.weight, whe.restTime) " +
+            "FROM Workout w LEFT JOIN w.user u LEFT JOIN w.workoutHasExercises whe WHERE w.id = :id ORDER BY whe.id")
+    List<WorkoutDetailRowDTO> findDetailRowsById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new fks.healthhub_backend.dto.WorkoutSummaryDTO(w.id, w.title, w.description, w.duration, w.workoutType, " +
+            "w.user.id, w.createdAt, w.updatedAt) FROM Workout w ORDER BY w.id")
+    Stream<WorkoutSummaryDTO> streamAllSummaries();
+
+    @EntityGraph("Workout.list")
+    @Query("SELECT w FROM Workout w WHERE w.id > :afterId ORDER BY w.id")
+    List<Workout> findPageOrderById(@Param("afterId") Long afterId, Pageable pageable);
+
+    @EntityGraph("Workout.list")
+    @Query("SELECT w FROM Workout w WHERE w.title > :title OR (w.title = :title AND w.id > :afterId) ORDER BY w.title, w.id")
+    List<Workout> findPageOrderByTitle(@Param("title") String title, @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,89 @@
+package fks.healthhub_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived buffer of completion toggles. Repeated toggles of the same scheduled workout overwrite each
+ * other, and the buffer is flushed on a fixed delay as at most two set-based updates, so a burst of taps
+ * costs one write per batch instead of one per tap. A batch failing with a non-transient error is bisected so
+ * the offending toggles are isolated and dropped; other failures are retried a bounded number of times.
+ */
+@Slf4j
+@Component
+public class CompletionBuffer {
+    private static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_ATTEMPTS = 5;
+
+    private final ScheduledWorkoutCompletion scheduledWorkoutCompletion;
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CompletionBuffer(ScheduledWorkoutCompletion scheduledWorkoutCompletion) {
+        this.scheduledWorkoutCompletion = scheduledWorkoutCompletion;
+    }
+
+    public void submit(Long id, boolean completed) {
+        pending.put(id, completed);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${healthhub.completion-buffer.flush-interval:500ms}")
+    public void flush() {
+        List<Long> completed = new ArrayList<>();
+        List<Long> notCompleted = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            Boolean value = pending.remove(id);
+            if (value != null) {
+                (value ? completed : notCompleted).add(id);
+            }
+        }
+        apply(completed, true);
+        apply(notCompleted, false);
+    }
+
+    private void apply(List<Long> ids, boolean completed) {
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            applyBatch(ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size())), completed);
+        }
+    }
+
+    private void applyBatch(List<Long> batch, boolean completed) {
+        try {
+            scheduledWorkoutCompletion.complete(batch, completed);
+            batch.forEach(failedAttempts::remove);
+        } catch (NonTransientDataAccessException e) {
+            if (batch.size() > 1) {
+                int middle = batch.size() / 2;
+                applyBatch(batch.subList(0, middle), completed);
+                applyBatch(batch.subList(middle, batch.size()), completed);
+            } else {
+                failedAttempts.remove(batch.get(0));
+                log.error("Dropping buffered completion toggle of scheduled workout {}", batch.get(0), e);
+            }
+        } catch (RuntimeException e) {
+            List<Long> retried = new ArrayList<>();
+            for (Long id : batch) {
+                if (failedAttempts.merge(id, 1, Integer::sum) < MAX_ATTEMPTS) {
+                    // toggles submitted since the drain are newer and win over the failed ones
+                    pending.putIfAbsent(id, completed);
+                    retried.add(id);
+                } else {
+                    failedAttempts.remove(id);
+                }
+            }
+            log.warn("Could not apply {} buffered completion toggles, retrying {} with the next flush",
+                    batch.size(), retried.size(), e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package fks.healthhub_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseChangedEvent;
+import fks.healthhub_backend.repository.ExerciseRepository;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-optimized, immutable view of the exercise catalog. The whole catalog is loaded once at startup
+ * together with the JSON of every exercise, and replaced by a new snapshot whenever an exercise is
+ * written, so readers never touch the database or serialize per request. The snapshot keeps detached copies of
+ * the loaded entities and hands out copies again, so no caller can change what other readers see.
+ */
+@Component
+public class ExerciseCatalog {
+    private static final Comparator<Exercise> TITLE_ORDER = Comparator
+            .comparing(Exercise::getTitle, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Exercise::getId);
+
+    private final ExerciseRepository exerciseRepository;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ExerciseCatalog(ExerciseRepository exerciseRepository, ObjectMapper objectMapper) {
+        this.exerciseRepository = exerciseRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        lock.lock();
+        try {
+            snapshot = build(exerciseRepository.findAllWithMuscleGroups(), Map.of());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExerciseChanged(ExerciseChangedEvent event) {
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                refresh();
+                return;
+            }
+            Map<Long, Exercise> exercises = new HashMap<>(snapshot.exercisesById);
+            Map<Long, byte[]> json = new HashMap<>(snapshot.jsonById);
+            exercises.remove(event.exerciseId());
+            json.remove(event.exerciseId());
+            exerciseRepository.findByIdWithMuscleGroups(event.exerciseId())
+                    .ifPresent(exercise -> exercises.put(exercise.getId(), exercise));
+            snapshot = build(exercises.values(), json);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SneakyThrows
+    private Snapshot build(Collection<Exercise> exercises, Map<Long, byte[]> reusableJson) {
+        List<Exercise> sorted = exercises.stream()
+                .map(ExerciseCatalog::copy)
+                .sorted(Comparator.comparing(Exercise::getId))
+                .toList();
+        List<Exercise> sortedByTitle = sorted.stream()
+                .sorted(TITLE_ORDER)
+                .toList();
+
+        Map<Long, Exercise> exercisesById = new HashMap<>();
+        Map<Long, byte[]> jsonById = new HashMap<>();
+        for (Exercise exercise : sorted) {
+            byte[] json = reusableJson.get(exercise.getId());
+            if (json == null) {
+                json = objectMapper.writeValueAsBytes(exercise);
+            }
+            exercisesById.put(exercise.getId(), exercise);
+            jsonById.put(exercise.getId(), json);
+        }
+
+        return new Snapshot(sorted, sortedByTitle, Map.copyOf(exercisesById), Map.copyOf(jsonById),
+                new ExerciseFacetIndex(sorted), new ExerciseSearchIndex(sorted));
+    }
+
+    static Exercise copy(Exercise exercise) {
+        Exercise copy = new Exercise();
+        copy.setId(exercise.getId());
+        copy.setTitle(exercise.getTitle());
+        copy.setDescription(exercise.getDescription());
+        copy.setExerciseDifficulty(exercise.getExerciseDifficulty());
+        copy.setVideoGuide(exercise.getVideoGuide());
+        copy.setCreatedAt(exercise.getCreatedAt());
+        copy.setUpdatedAt(exercise.getUpdatedAt());
+        copy.setMuscleGroups(new HashSet<>(exercise.getMuscleGroups()));
+        return copy;
+    }
+
+    public static final class Snapshot {
+        private final List<Exercise> exercises;
+        private final List<Exercise> exercisesByTitle;
+        private final Map<Long, Exercise> exercisesById;
+        private final Map<Long, byte[]> jsonById;
+        private final ExerciseFacetIndex facetIndex;
+        private final ExerciseSearchIndex searchIndex;
+
+        private Snapshot(List<Exercise> exercises, List<Exercise> exercisesByTitle, Map<Long, Exercise> exercisesById,
+                         Map<Long, byte[]> jsonById, ExerciseFacetIndex facetIndex, ExerciseSearchIndex searchIndex) {
+            this.exercises = exercises;
+            this.exercisesByTitle = exercisesByTitle;
+            this.exercisesById = exercisesById;
+            this.jsonById = jsonById;
+            this.facetIndex = facetIndex;
+            this.searchIndex = searchIndex;
+        }
+
+        List<Exercise> exercises() {
+            return exercises;
+        }
+
+        public Optional<Exercise> find(Long id) {
+            return Optional.ofNullable(exercisesById.get(id)).map(ExerciseCatalog::copy);
+        }
+
+        public Optional<byte[]> json(Long id) {
+            return Optional.ofNullable(jsonById.get(id));
+        }
+
+        List<Exercise> page(KeysetCursor after, int count) {
+            boolean byTitle = after.sort().equals("title");
+            List<Exercise> ordered = byTitle ? exercisesByTitle : exercises;
+            Exercise probe = new Exercise();
+            probe.setId(after.id());
+            probe.setTitle(after.value());
+            Comparator<Exercise> order = byTitle ? TITLE_ORDER : Comparator.comparing(Exercise::getId);
+
+            int low = 0;
+            int high = ordered.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (order.compare(ordered.get(middle), probe) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return ordered.subList(low, Math.min(low + count, ordered.size()));
+        }
+
+        public ExerciseFacetIndex facetIndex() {
+            return facetIndex;
+        }
+
+        public ExerciseSearchIndex searchIndex() {
+            return searchIndex;
+        }
+    }
+}
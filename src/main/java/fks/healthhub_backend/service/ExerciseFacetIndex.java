@@ -0,0 +1,82 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseDifficulty;
+import fks.healthhub_backend.model.MuscleGroup;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from muscle group and difficulty to the positions of matching exercises in a catalog
+ * snapshot. Queries are answered by intersecting or unioning the bitsets.
+ */
+public class ExerciseFacetIndex {
+    public enum Match {
+        ANY,
+        ALL
+    }
+
+    private final int size;
+    private final Map<MuscleGroup, BitSet> byMuscleGroup = new EnumMap<>(MuscleGroup.class);
+    private final Map<ExerciseDifficulty, BitSet> byDifficulty = new EnumMap<>(ExerciseDifficulty.class);
+
+    public ExerciseFacetIndex(List<Exercise> exercises) {
+        this.size = exercises.size();
+        for (MuscleGroup muscleGroup : MuscleGroup.values()) {
+            byMuscleGroup.put(muscleGroup, new BitSet(size));
+        }
+        for (ExerciseDifficulty difficulty : ExerciseDifficulty.values()) {
+            byDifficulty.put(difficulty, new BitSet(size));
+        }
+        for (int i = 0; i < size; i++) {
+            Exercise exercise = exercises.get(i);
+            for (MuscleGroup muscleGroup : exercise.getMuscleGroups()) {
+                byMuscleGroup.get(muscleGroup).set(i);
+            }
+            if (exercise.getExerciseDifficulty() != null) {
+                byDifficulty.get(exercise.getExerciseDifficulty()).set(i);
+            }
+        }
+    }
+
+    public BitSet match(Set<MuscleGroup> muscleGroups, Match match, Set<ExerciseDifficulty> difficulties) {
+        BitSet result = new BitSet(size);
+        if (muscleGroups.isEmpty()) {
+            result.set(0, size);
+        } else if (match == Match.ALL) {
+            result.set(0, size);
+            muscleGroups.forEach(muscleGroup -> result.and(byMuscleGroup.get(muscleGroup)));
+        } else {
+            muscleGroups.forEach(muscleGroup -> result.or(byMuscleGroup.get(muscleGroup)));
+        }
+
+        if (!difficulties.isEmpty()) {
+            BitSet difficultyMatches = new BitSet(size);
+            difficulties.forEach(difficulty -> difficultyMatches.or(byDifficulty.get(difficulty)));
+            result.and(difficultyMatches);
+        }
+        return result;
+    }
+
+    public Map<MuscleGroup, Integer> muscleGroupCounts(BitSet matches) {
+        Map<MuscleGroup, Integer> counts = new EnumMap<>(MuscleGroup.class);
+        byMuscleGroup.forEach((muscleGroup, bits) -> counts.put(muscleGroup, intersectionSize(matches, bits)));
+        return counts;
+    }
+
+    public Map<ExerciseDifficulty, Integer> difficultyCounts(BitSet matches) {
+        Map<ExerciseDifficulty, Integer> counts = new EnumMap<>(ExerciseDifficulty.class);
+        byDifficulty.forEach((difficulty, bits) -> counts.put(difficulty, intersectionSize(matches, bits)));
+        return counts;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet intersection = (BitSet) a.clone();
+        intersection.and(b);
+        return intersection.cardinality();
+    }
+}
@@ -0,0 +1,192 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.model.Exercise;
+
+import java.util.*;
+
+/**
+ * Trigram index over exercise titles and descriptions. Queries of three or more characters intersect
+ * the posting lists of their trigrams and verify the remaining candidates; shorter queries fall back to
+ * a sorted index of title words, which also backs prefix autocomplete.
+ */
+public class ExerciseSearchIndex {
+    private static final int GRAM = 3;
+
+    private final List<Exercise> exercises;
+    private final String[] titles;
+    private final String[] descriptions;
+    private final Map<String, int[]> postings;
+    private final String[] words;
+    private final int[] wordOrdinals;
+
+    public ExerciseSearchIndex(List<Exercise> exercises) {
+        this.exercises = exercises;
+        this.titles = new String[exercises.size()];
+        this.descriptions = new String[exercises.size()];
+
+        Map<String, IntList> grams = new HashMap<>();
+        List<Map.Entry<String, Integer>> titleWords = new ArrayList<>();
+        for (int i = 0; i < exercises.size(); i++) {
+            titles[i] = normalize(exercises.get(i).getTitle());
+            descriptions[i] = normalize(exercises.get(i).getDescription());
+            for (String gram : trigrams(titles[i] + " " + descriptions[i])) {
+                grams.computeIfAbsent(gram, g -> new IntList()).add(i);
+            }
+            for (String word : titles[i].split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    titleWords.add(Map.entry(word, i));
+                }
+            }
+        }
+
+        this.postings = new HashMap<>(grams.size() * 2);
+        grams.forEach((gram, ordinals) -> postings.put(gram, ordinals.toArray()));
+
+        titleWords.sort(Map.Entry.comparingByKey());
+        this.words = new String[titleWords.size()];
+        this.wordOrdinals = new int[titleWords.size()];
+        for (int i = 0; i < titleWords.size(); i++) {
+            words[i] = titleWords.get(i).getKey();
+            wordOrdinals[i] = titleWords.get(i).getValue();
+        }
+    }
+
+    public List<Exercise> search(String query, int limit) {
+        String q = normalize(query);
+        int[] candidates = q.length() >= GRAM ? gramCandidates(q) : prefixCandidates(q);
+        return rank(q, candidates, limit).stream()
+                .map(exercises::get)
+                .toList();
+    }
+
+    public List<String> autocomplete(String prefix, int limit) {
+        String q = normalize(prefix);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        LinkedHashSet<String> suggestions = new LinkedHashSet<>();
+        for (int ordinal : rank(q, prefixCandidates(q), Integer.MAX_VALUE)) {
+            suggestions.add(exercises.get(ordinal).getTitle());
+            if (suggestions.size() == limit) {
+                break;
+            }
+        }
+        return List.copyOf(suggestions);
+    }
+
+    private int[] gramCandidates(String q) {
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : trigrams(q)) {
+            int[] ordinals = postings.get(gram);
+            if (ordinals == null) {
+                return new int[0];
+            }
+            lists.add(ordinals);
+        }
+        lists.sort(Comparator.comparingInt(ordinals -> ordinals.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return Arrays.stream(result)
+                .filter(ordinal -> titles[ordinal].contains(q) || descriptions[ordinal].contains(q))
+                .toArray();
+    }
+
+    private int[] prefixCandidates(String q) {
+        if (q.isEmpty()) {
+            int[] all = new int[exercises.size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        int from = Arrays.binarySearch(words, q);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        BitSet matches = new BitSet(exercises.size());
+        for (int i = from; i < words.length && words[i].startsWith(q); i++) {
+            matches.set(wordOrdinals[i]);
+        }
+        return matches.stream().toArray();
+    }
+
+    private List<Integer> rank(String q, int[] candidates, int limit) {
+        Comparator<Integer> order = Comparator.<Integer>comparingInt(ordinal -> score(q, ordinal))
+                .thenComparingInt(ordinal -> titles[ordinal].length())
+                .thenComparingInt(ordinal -> ordinal);
+        PriorityQueue<Integer> top = new PriorityQueue<>(order.reversed());
+        for (int ordinal : candidates) {
+            top.add(ordinal);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(order);
+        return ranked;
+    }
+
+    private int score(String q, int ordinal) {
+        String title = titles[ordinal];
+        if (title.equals(q)) {
+            return 0;
+        }
+        if (title.startsWith(q)) {
+            return 1;
+        }
+        int index = title.indexOf(q);
+        if (index > 0 && !Character.isLetterOrDigit(title.charAt(index - 1))) {
+            return 2;
+        }
+        return index >= 0 ? 3 : 4;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
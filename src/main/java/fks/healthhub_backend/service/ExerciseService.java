@@ -1,47 +1,93 @@
 package fks.healthhub_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.dto.ExerciseSearchResultDTO;
 import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseDifficulty;
 import fks.healthhub_backend.model.MuscleGroup;
-import fks.healthhub_backend.repository.ExerciseRepository;
 import jakarta.persistence.NoResultException;
-import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ExerciseService {
-    private final ExerciseRepository exerciseRepository;
-    private final ObjectMapper objectMapper;
+    private static final List<String> EXERCISE_SORT_KEYS = List.of("id", "title");
+    private final ExerciseCatalog exerciseCatalog;
 
     @Autowired
-    public ExerciseService(ExerciseRepository exerciseRepository, ObjectMapper objectMapper) {
-        this.exerciseRepository = exerciseRepository;
-        this.objectMapper = objectMapper;
+    public ExerciseService(ExerciseCatalog exerciseCatalog) {
+        this.exerciseCatalog = exerciseCatalog;
     }
 
-    @SneakyThrows
-    public JsonNode getExercise(Long id){
-        Exercise exercise = exerciseRepository.findById(id).orElseThrow(()
+    public byte[] getExercise(Long id){
+        return exerciseCatalog.snapshot().json(id).orElseThrow(()
                 -> new NoResultException("Exercise with id: " + id + " does not exist"));
-        return objectMapper.valueToTree(exercise);
     }
 
-    public List<Exercise> getAllExercises(){
-        return exerciseRepository.findAll();
+    public byte[] getAllExercises(int limit, String cursor, String sort){
+        KeysetCursor.checkLimit(limit);
+        KeysetCursor position = KeysetCursor.decode(cursor, sort, EXERCISE_SORT_KEYS);
+        ExerciseCatalog.Snapshot snapshot = exerciseCatalog.snapshot();
+        List<Exercise> exercises = snapshot.page(position, limit + 1);
+
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        page.writeBytes("{\"items\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < Math.min(limit, exercises.size()); i++) {
+            if (i > 0) {
+                page.write(',');
+            }
+            page.writeBytes(snapshot.json(exercises.get(i).getId()).orElseThrow());
+        }
+        page.writeBytes("],\"next\":".getBytes(StandardCharsets.UTF_8));
+        if (exercises.size() > limit) {
+            Exercise last = exercises.get(limit - 1);
+            String next = KeysetCursor.next(sort, sort.equals("title") ? last.getTitle() : null, last.getId());
+            page.writeBytes(("\"" + next + "\"").getBytes(StandardCharsets.UTF_8));
+        } else {
+            page.writeBytes("null".getBytes(StandardCharsets.UTF_8));
+        }
+        page.write('}');
+        return page.toByteArray();
     }
 
-    public List<Exercise> getExercisesByMuscleGroup(MuscleGroup muscleGroup) {
-        if (muscleGroup == null) {
+    public ExerciseSearchResultDTO getExercisesByMuscleGroup(Set<MuscleGroup> muscleGroups, ExerciseFacetIndex.Match match,
+                                                             Set<ExerciseDifficulty> difficulties) {
+        if (muscleGroups == null) {
             throw new IllegalArgumentException("Muscle group cannot be null");
         }
-        return exerciseRepository.findAllByMuscleGroup(muscleGroup);
+        if (muscleGroups.isEmpty()) {
+            throw new IllegalArgumentException("Muscle groups must not be empty");
+        }
+        ExerciseCatalog.Snapshot snapshot = exerciseCatalog.snapshot();
+        ExerciseFacetIndex facetIndex = snapshot.facetIndex();
+        BitSet matches = facetIndex.match(muscleGroups, match != null ? match : ExerciseFacetIndex.Match.ANY,
+                difficulties != null ? difficulties : Set.of());
+
+        List<Exercise> exercises = matches.stream()
+                .mapToObj(snapshot.exercises()::get)
+                .map(ExerciseCatalog::copy)
+                .toList();
+        return new ExerciseSearchResultDTO(exercises, facetIndex.muscleGroupCounts(matches), facetIndex.difficultyCounts(matches));
     }
 
-    public List<Exercise> getExercisesByTitle(String title) {
-        return exerciseRepository.findByTitleContaining(title);
+    public List<Exercise> getExercisesByTitle(String title, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return exerciseCatalog.snapshot().searchIndex().search(title, limit).stream()
+                .map(ExerciseCatalog::copy)
+                .toList();
+    }
+
+    public List<String> getExerciseTitleSuggestions(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return exerciseCatalog.snapshot().searchIndex().autocomplete(prefix, limit);
     }
 }
@@ -0,0 +1,46 @@
+package fks.healthhub_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque position in a listing ordered by a sort key and then by id. The cursor carries the sort key and
+ * id of the last row returned, so the next page is read with a range condition instead of an offset.
+ */
+public record KeysetCursor(String sort, String value, Long id) {
+    public static final int MAX_LIMIT = 500;
+
+    public static KeysetCursor first(String sort) {
+        return new KeysetCursor(sort, "", 0L);
+    }
+
+    public static KeysetCursor decode(String cursor, String sort, List<String> sortKeys) {
+        if (!sortKeys.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort key: " + sort + ", expected one of " + sortKeys);
+        }
+        if (cursor == null || cursor.isEmpty()) {
+            return first(sort);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3 || !parts[0].equals(sort)) {
+                throw new IllegalArgumentException("Cursor does not belong to sort key: " + sort);
+            }
+            return new KeysetCursor(parts[0], parts[2], Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    public static String next(String sort, String value, Long id) {
+        String raw = sort + ":" + id + ":" + (value != null ? value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.RecurringOccurrenceDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Expands recurrence rules into scheduled-workout occurrences on demand. Occurrences that have been
+ * completed or edited exist as materialized {@link UserHasWorkouts} rows and are never expanded again.
+ */
+@Component
+public class RecurringWorkoutSchedule {
+    public static final ZoneId OCCURRENCE_ZONE = ZoneId.of("UTC");
+
+    private final RecurringWorkoutRepository recurringWorkoutRepository;
+    private final UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @Autowired
+    public RecurringWorkoutSchedule(RecurringWorkoutRepository recurringWorkoutRepository,
+                                    UserHasWorkoutsRepository userHasWorkoutsRepository) {
+        this.recurringWorkoutRepository = recurringWorkoutRepository;
+        this.userHasWorkoutsRepository = userHasWorkoutsRepository;
+    }
+
+    public static ZonedDateTime scheduledAt(LocalDate occurrenceDate) {
+        return occurrenceDate.atStartOfDay(OCCURRENCE_ZONE);
+    }
+
+    public List<UserHasWorkouts> expand(Long userId, ZonedDateTime start, ZonedDateTime end) {
+        LocalDate from = start.withZoneSameInstant(OCCURRENCE_ZONE).toLocalDate();
+        LocalDate to = end.withZoneSameInstant(OCCURRENCE_ZONE).toLocalDate();
+
+        List<UserHasWorkouts> occurrences = new ArrayList<>();
+        for (Map.Entry<RecurringWorkout, List<LocalDate>> pending : pendingOccurrences(userId, from, to).entrySet()) {
+            for (LocalDate date : pending.getValue()) {
+                ZonedDateTime scheduledAt = scheduledAt(date);
+                if (!scheduledAt.isBefore(start) && !scheduledAt.isAfter(end)) {
+                    occurrences.add(occurrence(pending.getKey(), date));
+                }
+            }
+        }
+        return occurrences;
+    }
+
+    public long countPendingOccurrences(Long userId, LocalDate from, LocalDate to) {
+        return pendingOccurrences(userId, from, to).values().stream()
+                .mapToLong(List::size)
+                .sum();
+    }
+
+    private Map<RecurringWorkout, List<LocalDate>> pendingOccurrences(Long userId, LocalDate from, LocalDate to) {
+        List<RecurringWorkout> rules = recurringWorkoutRepository.findActiveByUserId(userId, from, to);
+        if (rules.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Set<LocalDate>> materialized = new HashMap<>();
+        List<Long> ruleIds = rules.stream().map(RecurringWorkout::getId).toList();
+        for (RecurringOccurrenceDTO row : userHasWorkoutsRepository.findMaterializedOccurrences(ruleIds, from, to)) {
+            materialized.computeIfAbsent(row.getRecurringWorkoutId(), id -> new HashSet<>()).add(row.getOccurrenceDate());
+        }
+
+        Map<RecurringWorkout, List<LocalDate>> pending = new LinkedHashMap<>();
+        for (RecurringWorkout rule : rules) {
+            Set<LocalDate> done = materialized.getOrDefault(rule.getId(), Set.of());
+            List<LocalDate> dates = rule.occurrencesBetween(from, to).stream()
+                    .filter(date -> !done.contains(date))
+                    .toList();
+            pending.put(rule, dates);
+        }
+        return pending;
+    }
+
+    private static UserHasWorkouts occurrence(RecurringWorkout rule, LocalDate date) {
+        UserHasWorkouts occurrence = new UserHasWorkouts();
+        occurrence.setUser(rule.getUser());
+        occurrence.setWorkout(rule.getWorkout());
+        occurrence.setScheduledAt(scheduledAt(date));
+        occurrence.setCompleted(false);
+        occurrence.setRecurringWorkout(rule);
+        occurrence.setOccurrenceDate(date);
+        return occurrence;
+    }
+}
@@ -0,0 +1,35 @@
+package fks.healthhub_backend.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Validators of a representation for conditional GETs. The weak ETag is derived from the newest
+ * {@code updatedAt} of the rows a representation is built from and, for collections, their count, so it can be
+ * read with a single aggregate lookup instead of loading the graph.
+ */
+public record ResourceVersion(String eTag, Instant lastModified) {
+
+    public static ResourceVersion of(long count, Collection<ZonedDateTime> timestamps) {
+        Instant newest = timestamps.stream()
+                .filter(Objects::nonNull)
+                .map(ZonedDateTime::toInstant)
+                .max(Instant::compareTo)
+                .orElse(Instant.EPOCH);
+        return new ResourceVersion("W/\"" + Long.toHexString(ChronoUnit.MICROS.between(Instant.EPOCH, newest))
+                + "-" + Long.toHexString(count) + "\"", newest);
+    }
+
+    public static String eTag(byte[] content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        return lastModified.toEpochMilli();
+    }
+}
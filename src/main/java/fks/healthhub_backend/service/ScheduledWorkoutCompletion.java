@@ -0,0 +1,93 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.CompletionChangeDTO;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Marks scheduled workouts as completed or not with one set-based {@code UPDATE}. Only rows whose flag
+ * actually flips are written, and they are stamped with a per-call {@code updated_at}; reading those rows
+ * back inside the same transaction, while the update still holds their locks, yields exactly the changes
+ * to fold into the stats rollup and the week calendars to invalidate. Completing a range also materializes the
+ * pending recurring occurrences in it as completed rows; pending occurrences are already incomplete.
+ */
+@Component
+public class ScheduledWorkoutCompletion {
+    private final UserHasWorkoutsRepository userHasWorkoutsRepository;
+    private final WorkoutStatsRollup workoutStatsRollup;
+    private final WeekCalendarCache weekCalendarCache;
+    private final RecurringWorkoutSchedule recurringWorkoutSchedule;
+
+    @Autowired
+    public ScheduledWorkoutCompletion(UserHasWorkoutsRepository userHasWorkoutsRepository, WorkoutStatsRollup workoutStatsRollup,
+                                      WeekCalendarCache weekCalendarCache, RecurringWorkoutSchedule recurringWorkoutSchedule) {
+        this.userHasWorkoutsRepository = userHasWorkoutsRepository;
+        this.workoutStatsRollup = workoutStatsRollup;
+        this.weekCalendarCache = weekCalendarCache;
+        this.recurringWorkoutSchedule = recurringWorkoutSchedule;
+    }
+
+    @Transactional
+    public int complete(Collection<Long> ids, boolean completed) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        ZonedDateTime updatedAt = updatedAt();
+        if (userHasWorkoutsRepository.updateCompletedByIdIn(ids, completed, updatedAt) == 0) {
+            return 0;
+        }
+        return applied(userHasWorkoutsRepository.findCompletionChangesByIdIn(ids, updatedAt), completed);
+    }
+
+    @Transactional
+    public int complete(Long userId, ZonedDateTime from, ZonedDateTime to, boolean completed) {
+        ZonedDateTime updatedAt = updatedAt();
+        int changed = 0;
+        if (userHasWorkoutsRepository.updateCompletedByUserIdAndScheduledAtBetween(userId, from, to, completed, updatedAt) > 0) {
+            changed = applied(userHasWorkoutsRepository.findCompletionChangesByUserIdAndScheduledAtBetween(userId, from, to, updatedAt), completed);
+        }
+        if (completed) {
+            changed += materializeCompleted(userId, from, to, updatedAt);
+        }
+        return changed;
+    }
+
+    private int materializeCompleted(Long userId, ZonedDateTime from, ZonedDateTime to, ZonedDateTime updatedAt) {
+        List<UserHasWorkouts> occurrences = recurringWorkoutSchedule.expand(userId, from, to);
+        if (occurrences.isEmpty()) {
+            return 0;
+        }
+        for (UserHasWorkouts occurrence : occurrences) {
+            occurrence.setCompleted(true);
+            occurrence.setUpdatedAt(updatedAt);
+        }
+        userHasWorkoutsRepository.saveAll(occurrences);
+        workoutStatsRollup.scheduled(occurrences);
+        weekCalendarCache.invalidate(userId, occurrences.stream().map(UserHasWorkouts::getScheduledAt).toList());
+        return occurrences.size();
+    }
+
+    private int applied(List<CompletionChangeDTO> changes, boolean completed) {
+        workoutStatsRollup.completionChanged(changes, completed);
+        changes.stream()
+                .collect(Collectors.groupingBy(CompletionChangeDTO::getUserId,
+                        Collectors.mapping(CompletionChangeDTO::getScheduledAt, Collectors.toList())))
+                .forEach(weekCalendarCache::invalidate);
+        return changes.size();
+    }
+
+    private static ZonedDateTime updatedAt() {
+        // truncated to the column precision so the stamp reads back equal
+        return ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -1,199 +1,547 @@
 package fks.healthhub_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import fks.healthhub_backend.dto.BulkScheduleResultDTO;
+import fks.healthhub_backend.dto.CompletionUpdateDTO;
+import fks.healthhub_backend.dto.OccurrenceUpdateDTO;
+import fks.healthhub_backend.dto.PageDTO;
+import fks.healthhub_backend.dto.ScheduledWorkoutRowDTO;
 import fks.healthhub_backend.dto.UserDTO;
+import fks.healthhub_backend.dto.UserHasWorkoutsDTO;
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.dto.WorkoutCompletionDTO;
+import fks.healthhub_backend.dto.WorkoutStatsTotalsDTO;
 import fks.healthhub_backend.model.*;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
 import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
 import fks.healthhub_backend.repository.UserRepository;
+import fks.healthhub_backend.repository.WorkoutAnalyticsRepository;
 import fks.healthhub_backend.repository.WorkoutRepository;
 import jakarta.persistence.NoResultException;
 import jakarta.transaction.Transactional;
 import lombok.SneakyThrows;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
+    private static final List<String> USER_SORT_KEYS = List.of("id", "username");
+    private static final int MAX_BULK_SCHEDULE_SIZE = 5000;
+    private static final int SCHEDULE_HORIZON_WEEKS = 12;
     private final UserRepository userRepository;
     private final WorkoutRepository workoutRepository;
     private final UserHasWorkoutsRepository userHasWorkoutsRepository;
+    private final WorkoutAnalyticsRepository workoutAnalyticsRepository;
+    private final WorkoutStatsRollup workoutStatsRollup;
+    private final RecurringWorkoutRepository recurringWorkoutRepository;
+    private final RecurringWorkoutSchedule recurringWorkoutSchedule;
     private final ObjectMapper objectMapper;
+    private final NdjsonWriter ndjsonWriter;
+    private final WeekCalendarCache weekCalendarCache;
+    private final UsernameIndex usernameIndex;
+    private final ScheduledWorkoutCompletion scheduledWorkoutCompletion;
+    private final CompletionBuffer completionBuffer;
 
     @Autowired
-    public UserService(UserRepository userRepository, WorkoutRepository workoutRepository, UserHasWorkoutsRepository userHasWorkoutsRepository, ObjectMapper objectMapper) {
+    public UserService(UserRepository userRepository, WorkoutRepository workoutRepository, UserHasWorkoutsRepository userHasWorkoutsRepository,
+                       WorkoutAnalyticsRepository workoutAnalyticsRepository, WorkoutStatsRollup workoutStatsRollup,
+                       RecurringWorkoutRepository recurringWorkoutRepository, RecurringWorkoutSchedule recurringWorkoutSchedule,
+                       ObjectMapper objectMapper, NdjsonWriter ndjsonWriter, WeekCalendarCache weekCalendarCache,
+                       UsernameIndex usernameIndex, ScheduledWorkoutCompletion scheduledWorkoutCompletion, CompletionBuffer completionBuffer) {
         this.userRepository = userRepository;
         this.workoutRepository = workoutRepository;
         this.userHasWorkoutsRepository = userHasWorkoutsRepository;
+        this.workoutAnalyticsRepository = workoutAnalyticsRepository;
+        this.workoutStatsRollup = workoutStatsRollup;
+        this.recurringWorkoutRepository = recurringWorkoutRepository;
+        this.recurringWorkoutSchedule = recurringWorkoutSchedule;
         this.objectMapper = objectMapper;
+        this.ndjsonWriter = ndjsonWriter;
+        this.weekCalendarCache = weekCalendarCache;
+        this.usernameIndex = usernameIndex;
+        this.scheduledWorkoutCompletion = scheduledWorkoutCompletion;
+        this.completionBuffer = completionBuffer;
     }
 
-    @SneakyThrows
-    public JsonNode getUser(Long id){
-        User user = userRepository.findById(id).orElseThrow(()
+    public User getUser(Long id){
+        return userRepository.findDetailById(id).orElseThrow(()
                 -> new NoResultException("User with id: " + id + " does not exist"));
-        return objectMapper.valueToTree(user);
     }
 
-    public List<UserDTO> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream()
+    public ResourceVersion getUserVersion(Long id) {
+        VersionDTO version = userRepository.findVersionById(id)
+                .orElseThrow(() -> new NoResultException("User with id: " + id + " does not exist"));
+        return ResourceVersion.of(version.getCount(), version.getTimestamps());
+    }
+
+    public PageDTO<UserDTO> getAllUsers(int limit, String cursor, String sort) {
+        KeysetCursor.checkLimit(limit);
+        KeysetCursor position = KeysetCursor.decode(cursor, sort, USER_SORT_KEYS);
+        Pageable page = PageRequest.ofSize(limit + 1);
+        List<User> users = sort.equals("username")
+                ? userRepository.findPageOrderByUsername(position.value(), position.id(), page)
+                : userRepository.findPageOrderById(position.id(), page);
+
+        List<UserDTO> items = users.stream()
+                .limit(limit)
                 .map(user -> new UserDTO(user.getId(), user.getUsername()))
                 .collect(Collectors.toList());
+        String next = null;
+        if (users.size() > limit) {
+            UserDTO last = items.get(items.size() - 1);
+            next = KeysetCursor.next(sort, sort.equals("username") ? last.getUsername() : null, last.getId());
+        }
+        return new PageDTO<>(items, next);
     }
 
+    @Transactional
     @SneakyThrows
-    public JsonNode getScheduledWorkouts(Long userId) {
-        List<UserHasWorkouts> userWorkouts = userHasWorkoutsRepository.findByUserId(userId);
-        return objectMapper.valueToTree(userWorkouts);
+    public void exportUsers(OutputStream out) {
+        try (Stream<UserDTO> users = userRepository.streamAll()) {
+            ndjsonWriter.write(users, out);
+        }
     }
 
+    @Transactional
     @SneakyThrows
-    public JsonNode getScheduledWorkoutsForWeek(Long userId, ZonedDateTime date) {
-        LocalDate localDate = date.toLocalDate();
-        LocalDate startOfWeek = localDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        ZonedDateTime startOfWeekDateTime = startOfWeek.atStartOfDay(date.getZone());
+    public void exportScheduledWorkouts(OutputStream out) {
+        try (Stream<ScheduledWorkoutRowDTO> rows = userHasWorkoutsRepository.streamAllRows()) {
+            ndjsonWriter.write(rows, out);
+        }
+    }
 
-        LocalDate endOfWeek = startOfWeek.plusDays(6);
-        ZonedDateTime endOfWeekDateTime = endOfWeek.atTime(23, 59, 59).atZone(date.getZone());
+    public List<UserHasWorkouts> getScheduledWorkouts(Long userId) {
+        List<UserHasWorkouts> userWorkouts = userHasWorkoutsRepository.findByUserId(userId);
+        ZonedDateTime horizon = ZonedDateTime.now(RecurringWorkoutSchedule.OCCURRENCE_ZONE).plusWeeks(SCHEDULE_HORIZON_WEEKS);
+        List<UserHasWorkouts> occurrences = recurringWorkoutSchedule.expand(userId, RecurringWorkoutSchedule.scheduledAt(LocalDate.EPOCH), horizon);
+        return withOccurrences(userWorkouts, occurrences);
+    }
 
+    public WeekCalendar getScheduledWorkoutsForWeek(Long userId, ZonedDateTime date) {
+        return weekCalendarCache.get(userId, date, () -> loadScheduledWorkoutsForWeek(userId, date));
+    }
+
+    private ResourceVersion loadScheduledWorkoutsForWeekVersion(Long userId, ZonedDateTime date) {
+        ZonedDateTime startOfWeekDateTime = startOfWeek(date);
+        ZonedDateTime endOfWeekDateTime = endOfWeek(date);
+        LocalDate from = startOfWeekDateTime.withZoneSameInstant(RecurringWorkoutSchedule.OCCURRENCE_ZONE).toLocalDate();
+        LocalDate to = endOfWeekDateTime.withZoneSameInstant(RecurringWorkoutSchedule.OCCURRENCE_ZONE).toLocalDate();
+
+        VersionDTO scheduled = userHasWorkoutsRepository.findWeekVersionByUserId(userId, startOfWeekDateTime, endOfWeekDateTime, from, to);
+        VersionDTO recurring = recurringWorkoutRepository.findActiveVersionByUserId(userId, from, to);
+        List<ZonedDateTime> timestamps = new ArrayList<>(scheduled.getTimestamps());
+        timestamps.addAll(recurring.getTimestamps());
+        return ResourceVersion.of(scheduled.getCount() + recurring.getCount(), timestamps);
+    }
+
+    private static ZonedDateTime startOfWeek(ZonedDateTime date) {
+        return date.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(date.getZone());
+    }
+
+    private static ZonedDateTime endOfWeek(ZonedDateTime date) {
+        return date.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusDays(6)
+                .atTime(23, 59, 59).atZone(date.getZone());
+    }
+
+    @SneakyThrows
+    private WeekCalendar loadScheduledWorkoutsForWeek(Long userId, ZonedDateTime date) {
+        ZonedDateTime startOfWeekDateTime = startOfWeek(date);
+        ZonedDateTime endOfWeekDateTime = endOfWeek(date);
+
+        // read before the rows, so a write racing the load can only make the validators older, never newer
+        ResourceVersion version = loadScheduledWorkoutsForWeekVersion(userId, date);
         List<UserHasWorkouts> userWorkouts = userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
-        return objectMapper.valueToTree(userWorkouts);
+        List<UserHasWorkouts> occurrences = recurringWorkoutSchedule.expand(userId, startOfWeekDateTime, endOfWeekDateTime);
+        return new WeekCalendar(objectMapper.writeValueAsBytes(withOccurrences(userWorkouts, occurrences)), version);
+    }
+
+    private static List<UserHasWorkouts> withOccurrences(List<UserHasWorkouts> userWorkouts, List<UserHasWorkouts> occurrences) {
+        if (occurrences.isEmpty()) {
+            return userWorkouts;
+        }
+        List<UserHasWorkouts> merged = new ArrayList<>(userWorkouts);
+        merged.addAll(occurrences);
+        merged.sort(Comparator.comparing(UserHasWorkouts::getScheduledAt));
+        return merged;
     }
 
     public List<Workout> getAllWorkoutsByUser(Long userId){
         return userRepository.findWorkoutsByUserId(userId);
     }
 
-    public JsonNode getWorkoutCompletion(Long userId, int lookBackDays) {
-        ZonedDateTime lookBackDate = ZonedDateTime.now().minusDays(lookBackDays);
-
-        List<UserHasWorkouts> workouts = userHasWorkoutsRepository.findByUserIdAndScheduledAtAfter(userId, lookBackDate);
-        int trueCount = 0;
-        int falseCount = 0;
-
-        for (UserHasWorkouts workout : workouts) {
-            if (workout.getCompleted()) {
-                trueCount++;
-            } else {
-                falseCount++;
-            }
+    public WorkoutCompletionDTO getWorkoutCompletion(Long userId, int lookBackDays) {
+        long trueCount = 0;
+        long falseCount = 0;
+        for (WorkoutStatsTotalsDTO row : getWorkoutTotals(userId, lookBackDays)) {
+            trueCount += row.getCompleted();
+            falseCount += row.getIncomplete();
         }
+        LocalDate today = WorkoutStatsRollup.statDate(ZonedDateTime.now());
+        falseCount += recurringWorkoutSchedule.countPendingOccurrences(userId, today.minusDays(lookBackDays), today);
 
-        int totalCount = trueCount + falseCount;
+        long totalCount = trueCount + falseCount;
         int percentage = (totalCount > 0) ? (int) Math.round(((double) trueCount / totalCount) * 100) : 0;
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        resultNode.put("complete", trueCount);
-        resultNode.put("incomplete", falseCount);
-        resultNode.put("percentage", percentage);
-
-        return resultNode;
+        return new WorkoutCompletionDTO(trueCount, falseCount, percentage);
     }
 
-    public JsonNode getWorkoutFavourite(Long userId) {
-        List<UserHasWorkouts> workouts = userHasWorkoutsRepository.findByUserId(userId);
-        int strengthCount = 0;
-        int cardioCount = 0;
-        int mobilityCount = 0;
+    public Map<WorkoutType, Long> getWorkoutFavourite(Long userId, Integer lookBackDays) {
+        Map<WorkoutType, Long> counts = new EnumMap<>(WorkoutType.class);
+        for (WorkoutType type : WorkoutType.values()) {
+            counts.put(type, 0L);
+        }
+        for (WorkoutStatsTotalsDTO row : getWorkoutTotals(userId, lookBackDays)) {
+            counts.merge(row.getWorkoutType(), row.getCompleted(), Long::sum);
+        }
+        return counts;
+    }
 
-        for (UserHasWorkouts workout : workouts) {
-            if (workout.getCompleted()) {
-                WorkoutType type = workout.getWorkout().getWorkoutType();
-                switch (type) {
-                    case STRENGTH -> strengthCount++;
-                    case CARDIO -> cardioCount++;
-                    case MOBILITY -> mobilityCount++;
-                }
-            }
+    private List<WorkoutStatsTotalsDTO> getWorkoutTotals(Long userId, Integer lookBackDays) {
+        if (lookBackDays == null) {
+            return workoutAnalyticsRepository.totalsByWorkoutType(userId);
         }
+        LocalDate from = WorkoutStatsRollup.statDate(ZonedDateTime.now()).minusDays(lookBackDays);
+        return workoutAnalyticsRepository.totalsByWorkoutTypeFrom(userId, from);
+    }
+
+    @Transactional
+    public void rebuildWorkoutStats() {
+        workoutStatsRollup.rebuild();
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        resultNode.put("STRENGTH", strengthCount);
-        resultNode.put("CARDIO", cardioCount);
-        resultNode.put("MOBILITY", mobilityCount);
+    @Transactional
+    public void rebuildWorkoutStats(Long userId) {
+        workoutStatsRollup.rebuild(userId);
+    }
 
-        return resultNode;
+    public boolean isUsernameAvailable(String username) {
+        return usernameIndex.isAvailable(username);
     }
 
     public void createUser(User user) {
-        User existingUser = userRepository.findByUsername(user.getUsername());
-        if (existingUser != null) {
-            throw new IllegalArgumentException("Username: " + user.getUsername() + " is already taken");
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUsernameTaken(e, user.getUsername());
         }
-        userRepository.save(user);
+        usernameIndex.add(user.getUsername());
     }
 
     @Transactional
     @SneakyThrows
     public Object createScheduledWorkout(UserHasWorkouts userHasWorkout, Long userId, Long workoutId, boolean recurring, DayOfWeek dayOfWeek, ZonedDateTime scheduledAt) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new Exception("User not found with ID: " + userId));
-        Workout workout = workoutRepository.findById(workoutId)
+        if (!userRepository.existsById(userId)) {
+            throw new Exception("User not found with ID: " + userId);
+        }
+        WorkoutType workoutType = workoutRepository.findWorkoutTypeById(workoutId)
                 .orElseThrow(() -> new Exception("Workout not found with ID: " + workoutId));
+        User user = userRepository.getReferenceById(userId);
+        Workout workout = workoutRepository.getReferenceById(workoutId);
 
         if (recurring && dayOfWeek != null) {
-            return createRecurringScheduledWorkouts(user, workout, dayOfWeek);
+            weekCalendarCache.invalidateUser(userId);
+            return recurringWorkoutRepository.save(buildRecurringWorkout(user, workout, dayOfWeek));
         } else {
             userHasWorkout.setUser(user);
             userHasWorkout.setWorkout(workout);
             userHasWorkout.setScheduledAt(scheduledAt);
             userHasWorkout.setCompleted(false);
-            return userHasWorkoutsRepository.save(userHasWorkout);
+            UserHasWorkouts saved = userHasWorkoutsRepository.save(userHasWorkout);
+            workoutStatsRollup.scheduled(userHasWorkout, workoutType);
+            weekCalendarCache.invalidate(userId, scheduledAt);
+            return saved;
         }
     }
 
-    @SneakyThrows
-    private List<UserHasWorkouts> createRecurringScheduledWorkouts(User user, Workout workout, DayOfWeek dayOfWeek) {
+    @Transactional
+    public List<BulkScheduleResultDTO> createScheduledWorkouts(List<UserHasWorkoutsDTO> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("At least one scheduled workout is required");
+        }
+        if (entries.size() > MAX_BULK_SCHEDULE_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SCHEDULE_SIZE + " scheduled workouts can be created at once");
+        }
+
+        Set<Long> userIds = entries.stream()
+                .map(UserHasWorkoutsDTO::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> workoutIds = entries.stream()
+                .map(UserHasWorkoutsDTO::getWorkoutId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : userRepository.findExistingIds(userIds);
+        Map<Long, Workout> workouts = workoutRepository.findAllById(workoutIds).stream()
+                .collect(Collectors.toMap(Workout::getId, workout -> workout));
+
+        List<BulkScheduleResultDTO> results = new ArrayList<>(entries.size());
+        Object[] created = new Object[entries.size()];
         List<UserHasWorkouts> scheduledWorkouts = new ArrayList<>();
-        LocalDate startDate = LocalDate.now();
-        LocalDate endDate = startDate.plusWeeks(12);
+        List<RecurringWorkout> recurringWorkouts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            UserHasWorkoutsDTO entry = entries.get(i);
+            String error = validateScheduleEntry(entry, existingUserIds, workouts);
+            if (error == null) {
+                User user = userRepository.getReferenceById(entry.getUserId());
+                Workout workout = workouts.get(entry.getWorkoutId());
+                if (entry.isRecurring()) {
+                    RecurringWorkout recurringWorkout = buildRecurringWorkout(user, workout, entry.getDayOfWeek());
+                    recurringWorkouts.add(recurringWorkout);
+                    created[i] = recurringWorkout;
+                } else {
+                    UserHasWorkouts scheduledWorkout = buildScheduledWorkout(user, workout, entry.getScheduledAt());
+                    scheduledWorkouts.add(scheduledWorkout);
+                    created[i] = scheduledWorkout;
+                }
+            }
+            results.add(new BulkScheduleResultDTO(i, error == null, null, null, error));
+        }
+
+        userHasWorkoutsRepository.saveAll(scheduledWorkouts);
+        recurringWorkoutRepository.saveAll(recurringWorkouts);
+        workoutStatsRollup.scheduled(scheduledWorkouts);
+        scheduledWorkouts.stream()
+                .collect(Collectors.groupingBy(scheduledWorkout -> scheduledWorkout.getUser().getId(),
+                        Collectors.mapping(UserHasWorkouts::getScheduledAt, Collectors.toList())))
+                .forEach(weekCalendarCache::invalidate);
+        weekCalendarCache.invalidateUsers(recurringWorkouts.stream()
+                .map(recurringWorkout -> recurringWorkout.getUser().getId())
+                .collect(Collectors.toSet()));
+
+        for (int i = 0; i < results.size(); i++) {
+            if (created[i] instanceof UserHasWorkouts scheduledWorkout) {
+                results.get(i).setId(scheduledWorkout.getId());
+            } else if (created[i] instanceof RecurringWorkout recurringWorkout) {
+                results.get(i).setRecurringWorkoutId(recurringWorkout.getId());
+            }
+        }
+        return results;
+    }
+
+    private String validateScheduleEntry(UserHasWorkoutsDTO entry, Set<Long> existingUserIds, Map<Long, Workout> workouts) {
+        if (entry.getUserId() == null || !existingUserIds.contains(entry.getUserId())) {
+            return "User not found with ID: " + entry.getUserId();
+        }
+        if (entry.getWorkoutId() == null || !workouts.containsKey(entry.getWorkoutId())) {
+            return "Workout not found with ID: " + entry.getWorkoutId();
+        }
+        if (entry.isRecurring() && entry.getDayOfWeek() == null) {
+            return "Day of week is required for recurring workouts";
+        }
+        if (!entry.isRecurring() && entry.getScheduledAt() == null) {
+            return "Scheduled date is required for non-recurring workouts";
+        }
+        return null;
+    }
+
+    private RecurringWorkout buildRecurringWorkout(User user, Workout workout, DayOfWeek dayOfWeek) {
+        RecurringWorkout recurringWorkout = new RecurringWorkout();
+        recurringWorkout.setUser(user);
+        recurringWorkout.setWorkout(workout);
+        recurringWorkout.setDayOfWeek(dayOfWeek);
+        recurringWorkout.setStartDate(LocalDate.now(RecurringWorkoutSchedule.OCCURRENCE_ZONE));
+        return recurringWorkout;
+    }
+
+    private UserHasWorkouts buildScheduledWorkout(User user, Workout workout, ZonedDateTime scheduledAt) {
+        UserHasWorkouts scheduledWorkout = new UserHasWorkouts();
+        scheduledWorkout.setUser(user);
+        scheduledWorkout.setWorkout(workout);
+        scheduledWorkout.setScheduledAt(scheduledAt);
+        scheduledWorkout.setCompleted(false);
+        return scheduledWorkout;
+    }
 
-        ZoneId utcZone = ZoneId.of("UTC");
+    @Transactional
+    public UserHasWorkouts updateRecurringOccurrence(Long recurringWorkoutId, LocalDate occurrenceDate, OccurrenceUpdateDTO update) {
+        RecurringWorkout recurringWorkout = recurringWorkoutRepository.findById(recurringWorkoutId)
+                .orElseThrow(() -> new NoResultException("Recurring workout not found with ID: " + recurringWorkoutId));
+        Optional<UserHasWorkouts> existing = userHasWorkoutsRepository.findByRecurringWorkoutIdAndOccurrenceDate(recurringWorkoutId, occurrenceDate);
+
+        List<ZonedDateTime> touched = new ArrayList<>();
+        touched.add(RecurringWorkoutSchedule.scheduledAt(occurrenceDate));
+        UserHasWorkouts occurrence;
+        if (existing.isPresent()) {
+            occurrence = existing.get();
+            touched.add(occurrence.getScheduledAt());
+            workoutStatsRollup.unscheduled(List.of(occurrence));
+        } else {
+            if (!recurringWorkout.occursOn(occurrenceDate)) {
+                throw new IllegalArgumentException("Recurring workout with ID: " + recurringWorkoutId + " does not occur on " + occurrenceDate);
+            }
+            occurrence = buildScheduledWorkout(recurringWorkout.getUser(), recurringWorkout.getWorkout(),
+                    RecurringWorkoutSchedule.scheduledAt(occurrenceDate));
+            occurrence.setRecurringWorkout(recurringWorkout);
+            occurrence.setOccurrenceDate(occurrenceDate);
+        }
 
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusWeeks(1)) {
-            LocalDate nextDate = date.with(TemporalAdjusters.nextOrSame(dayOfWeek));
-            ZonedDateTime scheduledAt = nextDate.atStartOfDay(utcZone);
+        if (update != null) {
+            if (update.getCompleted() != null) {
+                occurrence.setCompleted(update.getCompleted());
+            }
+            if (update.getScheduledAt() != null) {
+                occurrence.setScheduledAt(update.getScheduledAt());
+            }
+        }
+        occurrence.setUpdatedAt(ZonedDateTime.now());
+        UserHasWorkouts saved = userHasWorkoutsRepository.save(occurrence);
+        workoutStatsRollup.scheduled(List.of(occurrence));
+        touched.add(occurrence.getScheduledAt());
+        weekCalendarCache.invalidate(recurringWorkout.getUser().getId(), touched);
+        return saved;
+    }
 
-            UserHasWorkouts scheduledWorkout = new UserHasWorkouts();
-            scheduledWorkout.setUser(user);
-            scheduledWorkout.setWorkout(workout);
-            scheduledWorkout.setScheduledAt(scheduledAt);
-            scheduledWorkout.setCompleted(false);
+    @Transactional
+    public void skipRecurringOccurrence(Long recurringWorkoutId, LocalDate occurrenceDate) {
+        RecurringWorkout recurringWorkout = recurringWorkoutRepository.findById(recurringWorkoutId)
+                .orElseThrow(() -> new NoResultException("Recurring workout not found with ID: " + recurringWorkoutId));
+        recurringWorkout.getExceptions().add(occurrenceDate);
+        recurringWorkout.setUpdatedAt(ZonedDateTime.now());
+        recurringWorkoutRepository.save(recurringWorkout);
+
+        List<ZonedDateTime> touched = new ArrayList<>();
+        touched.add(RecurringWorkoutSchedule.scheduledAt(occurrenceDate));
+        userHasWorkoutsRepository.findByRecurringWorkoutIdAndOccurrenceDate(recurringWorkoutId, occurrenceDate)
+                .ifPresent(occurrence -> {
+                    userHasWorkoutsRepository.delete(occurrence);
+                    workoutStatsRollup.unscheduled(List.of(occurrence));
+                    touched.add(occurrence.getScheduledAt());
+                });
+        weekCalendarCache.invalidate(recurringWorkout.getUser().getId(), touched);
+    }
 
-            scheduledWorkouts.add(scheduledWorkout);
+    @Transactional
+    public void cancelRecurringWorkout(Long recurringWorkoutId, LocalDate from) {
+        RecurringWorkout recurringWorkout = recurringWorkoutRepository.findById(recurringWorkoutId)
+                .orElseThrow(() -> new NoResultException("Recurring workout not found with ID: " + recurringWorkoutId));
+        boolean wholeSeries = from == null || !from.isAfter(recurringWorkout.getStartDate());
+        LocalDate cancelFrom = wholeSeries ? recurringWorkout.getStartDate() : from;
+
+        workoutStatsRollup.unscheduledByRecurringWorkoutId(recurringWorkoutId, cancelFrom);
+        userHasWorkoutsRepository.deleteByRecurringWorkoutIdFrom(recurringWorkoutId, cancelFrom);
+        if (wholeSeries) {
+            recurringWorkoutRepository.delete(recurringWorkout);
+        } else if (recurringWorkout.getEndDate() == null || !recurringWorkout.getEndDate().isBefore(from)) {
+            recurringWorkout.setEndDate(from.minusDays(1));
+            recurringWorkout.setUpdatedAt(ZonedDateTime.now());
+            recurringWorkoutRepository.save(recurringWorkout);
         }
+        weekCalendarCache.invalidateUser(recurringWorkout.getUser().getId());
+    }
 
-        return userHasWorkoutsRepository.saveAll(scheduledWorkouts);
+    @Transactional
+    public void cancelScheduledWorkouts(Long userId, ZonedDateTime from, ZonedDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        workoutStatsRollup.unscheduledByUserId(userId, from, to);
+        userHasWorkoutsRepository.deleteByUserIdAndScheduledAtBetween(userId, from, to);
+
+        // occurrence dates only exist in RecurringWorkout.occurrencesBetween, so the exceptions are computed here and
+        // written as one JDBC batch; the touched rules are then bumped with a single bulk update
+        LocalDate firstDate = from.withZoneSameInstant(RecurringWorkoutSchedule.OCCURRENCE_ZONE).toLocalDate();
+        LocalDate lastDate = to.withZoneSameInstant(RecurringWorkoutSchedule.OCCURRENCE_ZONE).toLocalDate();
+        List<Long> skippedRuleIds = new ArrayList<>();
+        for (RecurringWorkout recurringWorkout : recurringWorkoutRepository.findActiveWithExceptionsByUserId(userId, firstDate, lastDate)) {
+            List<LocalDate> skipped = recurringWorkout.occurrencesBetween(firstDate, lastDate).stream()
+                    .filter(date -> !RecurringWorkoutSchedule.scheduledAt(date).isBefore(from)
+                            && RecurringWorkoutSchedule.scheduledAt(date).isBefore(to))
+                    .toList();
+            if (!skipped.isEmpty()) {
+                recurringWorkout.getExceptions().addAll(skipped);
+                skippedRuleIds.add(recurringWorkout.getId());
+            }
+        }
+        if (!skippedRuleIds.isEmpty()) {
+            recurringWorkoutRepository.updateUpdatedAtByIdIn(skippedRuleIds, ZonedDateTime.now());
+        }
+        weekCalendarCache.invalidateUser(userId);
     }
 
+    @Transactional
     public void updateUser(Long id, User updatedUser) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NoResultException("User with ID: " + id + " could not be found"));
+        boolean usernameChanged = false;
         if(updatedUser != null) {
-            user.setUsername(!updatedUser.getUsername().equals("") ? updatedUser.getUsername() : user.getUsername());
+            String username = !updatedUser.getUsername().equals("") ? updatedUser.getUsername() : user.getUsername();
+            usernameChanged = !username.equals(user.getUsername());
+            user.setUsername(username);
             user.setUpdatedAt(ZonedDateTime.now());
         }
-        userRepository.save(user);
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUsernameTaken(e, user.getUsername());
+        }
+        if (usernameChanged) {
+            // usernames are embedded in every calendar that shows a workout of this user
+            weekCalendarCache.invalidateAll();
+        }
+        usernameIndex.add(user.getUsername());
+    }
+
+    private static RuntimeException translateUsernameTaken(DataIntegrityViolationException e, String username) {
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(User.USERNAME_CONSTRAINT)) {
+            return new IllegalArgumentException("Username: " + username + " is already taken");
+        }
+        return e;
+    }
+
+    public int updateCompletion(CompletionUpdateDTO update) {
+        if (update.getIds() != null && !update.getIds().isEmpty()) {
+            return scheduledWorkoutCompletion.complete(Set.copyOf(update.getIds()), update.isCompleted());
+        }
+        if (update.getUserId() == null || update.getFrom() == null || update.getTo() == null) {
+            throw new IllegalArgumentException("Either ids or userId, from and to are required");
+        }
+        return scheduledWorkoutCompletion.complete(update.getUserId(), update.getFrom(), update.getTo(), update.isCompleted());
     }
 
+    public void bufferCompletion(Long userHasWorkoutsId, boolean completed) {
+        if (!userHasWorkoutsRepository.existsById(userHasWorkoutsId)) {
+            throw new NoResultException("Scheduled workout not found with ID: " + userHasWorkoutsId);
+        }
+        completionBuffer.submit(userHasWorkoutsId, completed);
+    }
+
+    @Transactional
     public void deleteScheduledWorkout(Long userHasWorkoutsId) {
         Optional<UserHasWorkouts> userHasWorkoutsOptional = userHasWorkoutsRepository.findById(userHasWorkoutsId);
         if (userHasWorkoutsOptional.isPresent()) {
-            userHasWorkoutsRepository.delete(userHasWorkoutsOptional.get());
+            UserHasWorkouts userHasWorkouts = userHasWorkoutsOptional.get();
+            RecurringWorkout recurringWorkout = userHasWorkouts.getRecurringWorkout();
+            if (recurringWorkout != null && userHasWorkouts.getOccurrenceDate() != null) {
+                // without an exception the rule would expand the deleted occurrence again as pending
+                recurringWorkout.getExceptions().add(userHasWorkouts.getOccurrenceDate());
+                recurringWorkout.setUpdatedAt(ZonedDateTime.now());
+                recurringWorkoutRepository.save(recurringWorkout);
+            }
+            userHasWorkoutsRepository.delete(userHasWorkouts);
+            workoutStatsRollup.unscheduled(List.of(userHasWorkouts));
+            weekCalendarCache.invalidate(userHasWorkouts.getUser().getId(), userHasWorkouts.getScheduledAt());
         } else {
             throw new NoResultException("Scheduled workout not found with ID: " + userHasWorkoutsId);
         }
@@ -0,0 +1,132 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter over the taken usernames, so availability checks answer "available" without a database round
+ * trip for names that were never registered. A positive answer may be false and is confirmed against the
+ * database; the unique index on {@code users.username} remains the authority when a user is created. The
+ * filter is rebuilt from the database at startup and once it holds more names than it was sized for.
+ */
+@Component
+public class UsernameIndex {
+    private static final int MINIMUM_CAPACITY = 1 << 14;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final UserRepository userRepository;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filter;
+
+    @Autowired
+    public UsernameIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        lock.lock();
+        try {
+            List<String> usernames = userRepository.findAllUsernames();
+            BloomFilter rebuilt = new BloomFilter(Math.max(MINIMUM_CAPACITY, usernames.size() * 2), FALSE_POSITIVE_RATE);
+            usernames.forEach(rebuilt::add);
+            filter = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isAvailable(String username) {
+        if (username == null || username.isBlank()) {
+            return false;
+        }
+        return !current().mightContain(username) || !userRepository.existsByUsername(username);
+    }
+
+    public void add(String username) {
+        BloomFilter current = current();
+        current.add(username);
+        if (current.isFull()) {
+            refresh();
+        }
+    }
+
+    private BloomFilter current() {
+        BloomFilter current = filter;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (filter == null) {
+                    refresh();
+                }
+                current = filter;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+        private final int capacity;
+        private final AtomicInteger size = new AtomicInteger();
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, optimalBits);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) >>> 6);
+            this.capacity = capacity;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = bit(hash, i);
+                bits.getAndAccumulate(bit >>> 6, 1L << bit, (word, mask) -> word | mask);
+            }
+            size.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = bit(hash, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isFull() {
+            return size.get() > capacity;
+        }
+
+        private int bit(long hash, int i) {
+            return Math.floorMod((int) hash + i * ((int) (hash >>> 32) | 1), bitCount);
+        }
+
+        private static long hash(String value) {
+            // 64-bit FNV-1a over the UTF-8 bytes, split into the two halves used for double hashing
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
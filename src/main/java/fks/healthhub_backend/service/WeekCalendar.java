@@ -0,0 +1,8 @@
+package fks.healthhub_backend.service;
+
+/**
+ * Serialized week calendar together with the validators it was built under, so a cached week can answer
+ * conditional GETs without another lookup.
+ */
+public record WeekCalendar(byte[] json, ResourceVersion version) {
+}
@@ -0,0 +1,151 @@
+package fks.healthhub_backend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.*;
+import java.time.temporal.IsoFields;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of serialized week calendars and their validators keyed by user, ISO week and zone. Writers invalidate only the
+ * weeks that contain the instants they touched; invalidation runs again after commit so a reader racing the
+ * writing transaction cannot leave a stale week behind. Entries are futures completed outside the map's
+ * locks, so a loader blocking on JDBC never pins a virtual thread's carrier.
+ */
+@Component
+public class WeekCalendarCache {
+    private final AsyncCache<WeekKey, WeekCalendar> cache;
+    private final Map<Long, Set<WeekKey>> keysByUser = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WeekCalendarCache(MeterRegistry meterRegistry,
+                             @Value("${healthhub.week-calendar-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${healthhub.week-calendar-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .executor(Runnable::run)
+                .removalListener((WeekKey key, WeekCalendar value, RemovalCause cause) -> {
+                    if (key != null) {
+                        forget(key);
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "scheduledWorkoutsForWeek");
+    }
+
+    public WeekCalendar get(Long userId, ZonedDateTime date, Supplier<WeekCalendar> loader) {
+        WeekKey key = WeekKey.of(userId, date);
+        CompletableFuture<WeekCalendar> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.join();
+        }
+        CompletableFuture<WeekCalendar> loading = new CompletableFuture<>();
+        CompletableFuture<WeekCalendar> existing = cache.asMap().putIfAbsent(key, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+        keysByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        try {
+            WeekCalendar value = loader.get();
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(Long userId, ZonedDateTime... instants) {
+        invalidate(userId, Arrays.asList(instants));
+    }
+
+    public void invalidate(Long userId, Collection<ZonedDateTime> instants) {
+        List<ZonedDateTime> touched = instants.stream().filter(Objects::nonNull).toList();
+        if (userId == null || touched.isEmpty()) {
+            return;
+        }
+        runNowAndAfterCommit(() -> {
+            Set<WeekKey> keys = keysByUser.get(userId);
+            if (keys == null) {
+                return;
+            }
+            for (WeekKey key : Set.copyOf(keys)) {
+                if (touched.stream().anyMatch(key::contains)) {
+                    cache.synchronous().invalidate(key);
+                }
+            }
+        });
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> {
+            Set<WeekKey> keys = keysByUser.get(userId);
+            if (keys != null) {
+                cache.synchronous().invalidateAll(Set.copyOf(keys));
+            }
+        });
+    }
+
+    public void invalidateUsers(Collection<Long> userIds) {
+        userIds.forEach(this::invalidateUser);
+    }
+
+    public void invalidateAll() {
+        runNowAndAfterCommit(() -> cache.synchronous().invalidateAll());
+    }
+
+    private void forget(WeekKey key) {
+        keysByUser.computeIfPresent(key.userId(), (userId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    record WeekKey(Long userId, int weekBasedYear, int week, ZoneId zone) {
+        static WeekKey of(Long userId, ZonedDateTime date) {
+            LocalDate localDate = date.toLocalDate();
+            return new WeekKey(userId, localDate.get(IsoFields.WEEK_BASED_YEAR),
+                    localDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), date.getZone());
+        }
+
+        boolean contains(ZonedDateTime instant) {
+            LocalDate localDate = instant.withZoneSameInstant(zone).toLocalDate();
+            return localDate.get(IsoFields.WEEK_BASED_YEAR) == weekBasedYear
+                    && localDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR) == week;
+        }
+    }
+}
@@ -1,77 +1,155 @@
 package fks.healthhub_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.dto.PageDTO;
 import fks.healthhub_backend.dto.UserDTO;
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.dto.WorkoutDetailRowDTO;
 import fks.healthhub_backend.dto.WorkoutDTO;
 import fks.healthhub_backend.dto.WorkoutHasExercisesDTO;
+import fks.healthhub_backend.dto.WorkoutPatchDTO;
+import fks.healthhub_backend.dto.WorkoutSummaryDTO;
 import fks.healthhub_backend.model.Exercise;
 import fks.healthhub_backend.model.User;
 import fks.healthhub_backend.model.Workout;
 import fks.healthhub_backend.model.WorkoutHasExercises;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
 import fks.healthhub_backend.repository.UserRepository;
 import fks.healthhub_backend.repository.WorkoutHasExercisesRepository;
 import fks.healthhub_backend.repository.ExerciseRepository;
 import fks.healthhub_backend.repository.WorkoutRepository;
 import jakarta.persistence.NoResultException;
+import jakarta.transaction.Transactional;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class WorkoutService {
+    private static final List<String> WORKOUT_SORT_KEYS = List.of("id", "title");
     private final WorkoutRepository workoutRepository;
     private final ObjectMapper objectMapper;
     private final ExerciseRepository exerciseRepository;
     private final WorkoutHasExercisesRepository workoutHasExercisesRepository;
     private final UserRepository userRepository;
+    private final NdjsonWriter ndjsonWriter;
+    private final RecurringWorkoutRepository recurringWorkoutRepository;
+    private final UserHasWorkoutsRepository userHasWorkoutsRepository;
+    private final WeekCalendarCache weekCalendarCache;
+    private final WorkoutStatsRollup workoutStatsRollup;
 
     @Autowired
     public WorkoutService(WorkoutRepository workoutRepository, ObjectMapper objectMapper,
                           ExerciseRepository exerciseRepository,
-                          WorkoutHasExercisesRepository workoutHasExercisesRepository, UserRepository userRepository) {
+                          WorkoutHasExercisesRepository workoutHasExercisesRepository, UserRepository userRepository,
+                          NdjsonWriter ndjsonWriter, RecurringWorkoutRepository recurringWorkoutRepository,
+                          UserHasWorkoutsRepository userHasWorkoutsRepository, WeekCalendarCache weekCalendarCache,
+                          WorkoutStatsRollup workoutStatsRollup) {
         this.workoutRepository = workoutRepository;
         this.objectMapper = objectMapper;
         this.exerciseRepository = exerciseRepository;
         this.workoutHasExercisesRepository = workoutHasExercisesRepository;
         this.userRepository = userRepository;
+        this.ndjsonWriter = ndjsonWriter;
+        this.recurringWorkoutRepository = recurringWorkoutRepository;
+        this.userHasWorkoutsRepository = userHasWorkoutsRepository;
+        this.weekCalendarCache = weekCalendarCache;
+        this.workoutStatsRollup = workoutStatsRollup;
     }
 
-    @SneakyThrows
-    public JsonNode getWorkout(Long id) {
-        Workout workout = workoutRepository.findById(id).orElseThrow(() ->
-                new NoResultException("Workout with id: " + id + " does not exist"));
+    public WorkoutDTO getWorkout(Long id) {
+        List<WorkoutDetailRowDTO> rows = workoutRepository.findDetailRowsById(id);
+        if (rows.isEmpty()) {
+            throw new NoResultException("Workout with id: " + id + " does not exist");
+        }
 
+        WorkoutDetailRowDTO first = rows.get(0);
         WorkoutDTO workoutDTO = new WorkoutDTO();
-        workoutDTO.setId(workout.getId());
-        workoutDTO.setTitle(workout.getTitle());
-        workoutDTO.setDescription(workout.getDescription());
-        workoutDTO.setWorkoutType(workout.getWorkoutType());
+        workoutDTO.setId(first.getWorkoutId());
+        workoutDTO.setTitle(first.getTitle());
+        workoutDTO.setDescription(first.getDescription());
+        workoutDTO.setWorkoutType(first.getWorkoutType());
 
-        Set<WorkoutHasExercisesDTO> workoutHasExercisesDTOs = workout.getWorkoutHasExercises()
-                .stream()
+        Set<WorkoutHasExercisesDTO> workoutHasExercisesDTOs = rows.stream()
+                .filter(row -> row.getWorkoutHasExercisesId() != null)
                 .map(WorkoutHasExercisesMapper::toDto)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
         workoutDTO.setWorkoutHasExercises(workoutHasExercisesDTOs);
 
-        workoutDTO.setUser(new UserDTO(workout.getUser().getId(), workout.getUser().getUsername()));
-        return objectMapper.valueToTree(workoutDTO);
+        if (first.getUserId() != null) {
+            workoutDTO.setUser(new UserDTO(first.getUserId(), first.getUsername()));
+        }
+        return workoutDTO;
+    }
+
+    public ResourceVersion getWorkoutVersion(Long id) {
+        VersionDTO version = workoutRepository.findVersionById(id)
+                .orElseThrow(() -> new NoResultException("Workout with id: " + id + " does not exist"));
+        return ResourceVersion.of(version.getCount(), version.getTimestamps());
     }
 
-    public List<Workout> getAllWorkouts(){
-        return workoutRepository.findAll();
+    @Transactional
+    public PageDTO<Workout> getAllWorkouts(int limit, String cursor, String sort){
+        KeysetCursor.checkLimit(limit);
+        KeysetCursor position = KeysetCursor.decode(cursor, sort, WORKOUT_SORT_KEYS);
+        Pageable page = PageRequest.ofSize(limit + 1);
+        List<Workout> workouts = sort.equals("title")
+                ? workoutRepository.findPageOrderByTitle(position.value(), position.id(), page)
+                : workoutRepository.findPageOrderById(position.id(), page);
+
+        List<Workout> items = workouts.size() > limit ? workouts.subList(0, limit) : workouts;
+        fetchListCollections(items);
+        String next = null;
+        if (workouts.size() > limit) {
+            Workout last = items.get(items.size() - 1);
+            next = KeysetCursor.next(sort, sort.equals("title") ? last.getTitle() : null, last.getId());
+        }
+        return new PageDTO<>(items, next);
+    }
+
+    @Transactional
+    @SneakyThrows
+    public void exportWorkouts(OutputStream out) {
+        try (Stream<WorkoutSummaryDTO> workouts = workoutRepository.streamAllSummaries()) {
+            ndjsonWriter.write(workouts, out);
+        }
     }
 
+    @Transactional
     public List<Workout> getAllWorkoutsByUser(Long userId){
-        return workoutRepository.findWorkoutsByUserId(userId);
+        List<Workout> workouts = workoutRepository.findWorkoutsByUserId(userId);
+        fetchListCollections(workouts);
+        return workouts;
     }
 
+    // listings embed exercise rows and schedules; each collection is filled for the whole page in one statement
+    // here because open-in-view is off and nothing may lazy-load while the response is written
+    private void fetchListCollections(List<Workout> workouts) {
+        if (workouts.isEmpty()) {
+            return;
+        }
+        workoutRepository.fetchWorkoutHasExercises(workouts);
+        workoutRepository.fetchUserHasWorkouts(workouts);
+    }
+
+    @Transactional
     @SneakyThrows
     public Workout createWorkout(Workout workout, Long userId) {
         User user = userRepository.findById(userId)
@@ -79,22 +157,20 @@ public class WorkoutService {
         workout.setUser(user);
 
         if (workout.getWorkoutHasExercises() != null) {
+            Map<Long, Exercise> exercises = resolveExercises(workout.getWorkoutHasExercises());
             for (WorkoutHasExercises workoutHasExercise : workout.getWorkoutHasExercises()) {
                 workoutHasExercise.setWorkout(workout);
-
-                if (workoutHasExercise.getExercise() != null && workoutHasExercise.getExercise().getId() != null) {
-                    Long exerciseId = workoutHasExercise.getExercise().getId();
-                    Exercise exercise = exerciseRepository.findById(exerciseId).orElse(null);
-                    workoutHasExercise.setExercise(exercise);
-                } else {
-                    workoutHasExercise.setExercise(null);
-                }
+                Exercise exercise = workoutHasExercise.getExercise();
+                workoutHasExercise.setExercise(exercise != null && exercise.getId() != null
+                        ? exercises.get(exercise.getId())
+                        : null);
             }
         }
 
         return workoutRepository.save(workout);
     }
 
+    @Transactional
     @SneakyThrows
     public void updateWorkout(Long id, Workout updatedWorkout, Long userId) {
         Workout workout = workoutRepository.findById(id)
@@ -103,15 +179,55 @@ public class WorkoutService {
             workout.setTitle(!updatedWorkout.getTitle().equals("") ? updatedWorkout.getTitle() : workout.getTitle());
             workout.setDescription(!updatedWorkout.getDescription().equals("") ? updatedWorkout.getDescription() : workout.getDescription());
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new Exception("User not found with ID: " + userId));
-            workout.setUser(user);
+            workout.setUser(userReference(userId));
 
             workout.setUpdatedAt(ZonedDateTime.now());
+            invalidateScheduledWeeks(id);
         }
         workoutRepository.save(workout);
     }
 
+    @Transactional
+    public void patchWorkout(Long id, WorkoutPatchDTO patch) {
+        Workout workout = workoutRepository.findById(id)
+                .orElseThrow(() -> new NoResultException("Workout with ID: " + id + " could not be found"));
+        boolean changed = false;
+        if (patch.getTitle() != null && !patch.getTitle().equals(workout.getTitle())) {
+            workout.setTitle(patch.getTitle());
+            changed = true;
+        }
+        if (patch.getDescription() != null && !patch.getDescription().equals(workout.getDescription())) {
+            workout.setDescription(patch.getDescription());
+            changed = true;
+        }
+        if (patch.getDuration() != null && patch.getDuration() != workout.getDuration()) {
+            workout.setDuration(patch.getDuration());
+            changed = true;
+        }
+        if (patch.getWorkoutType() != null && patch.getWorkoutType() != workout.getWorkoutType()) {
+            workout.setWorkoutType(patch.getWorkoutType());
+            changed = true;
+        }
+        if (patch.getUserId() != null && (workout.getUser() == null || !patch.getUserId().equals(workout.getUser().getId()))) {
+            workout.setUser(userReference(patch.getUserId()));
+            changed = true;
+        }
+
+        if (changed) {
+            // the entity is managed, so the dirty columns are flushed on commit
+            workout.setUpdatedAt(ZonedDateTime.now());
+            invalidateScheduledWeeks(id);
+        }
+    }
+
+    @SneakyThrows
+    private User userReference(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new Exception("User not found with ID: " + userId);
+        }
+        return userRepository.getReferenceById(userId);
+    }
+
     public void deleteWorkoutExercise(Long workoutId, Long exerciseId) {
         Optional<WorkoutHasExercises> workoutHasExercisesOptional = workoutHasExercisesRepository.findByWorkoutIdAndExerciseId(workoutId, exerciseId);
         if (workoutHasExercisesOptional.isPresent()) {
@@ -121,13 +237,44 @@ public class WorkoutService {
         }
     }
 
+    @Transactional
     public void deleteWorkout(Long workoutId) {
-        Optional<Workout> workoutOptional = workoutRepository.findById(workoutId);
-        if (workoutOptional.isPresent()) {
-            workoutRepository.delete(workoutOptional.get());
-        } else {
+        if (!workoutRepository.existsById(workoutId)) {
             throw new NoResultException("Workout with ID: " + workoutId + " could not be found");
         }
+        invalidateScheduledWeeks(workoutId);
+        workoutStatsRollup.unscheduledByWorkoutId(workoutId);
+        userHasWorkoutsRepository.deleteByWorkoutId(workoutId);
+        recurringWorkoutRepository.deleteByWorkoutId(workoutId);
+        workoutHasExercisesRepository.deleteByWorkoutId(workoutId);
+        workoutRepository.deleteAllByIdInBatch(List.of(workoutId));
+    }
+
+    private Map<Long, Exercise> resolveExercises(Collection<WorkoutHasExercises> workoutHasExercises) {
+        Set<Long> exerciseIds = workoutHasExercises.stream()
+                .map(WorkoutHasExercises::getExercise)
+                .filter(Objects::nonNull)
+                .map(Exercise::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (exerciseIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Exercise> exercises = exerciseRepository.findByIdIn(List.copyOf(exerciseIds)).stream()
+                .collect(Collectors.toMap(Exercise::getId, Function.identity()));
+        List<Long> unknownIds = exerciseIds.stream()
+                .filter(exerciseId -> !exercises.containsKey(exerciseId))
+                .toList();
+        if (!unknownIds.isEmpty()) {
+            throw new IllegalArgumentException("Exercises with IDs: " + unknownIds + " do not exist");
+        }
+        return exercises;
+    }
+
+    private void invalidateScheduledWeeks(Long workoutId) {
+        weekCalendarCache.invalidateUsers(userHasWorkoutsRepository.findUserIdsByWorkoutId(workoutId));
+        weekCalendarCache.invalidateUsers(recurringWorkoutRepository.findUserIdsByWorkoutId(workoutId));
     }
 
     public static class WorkoutHasExercisesMapper {
@@ -141,6 +288,16 @@ public class WorkoutService {
             return dto;
         }
 
+        public static WorkoutHasExercisesDTO toDto(WorkoutDetailRowDTO row) {
+            WorkoutHasExercisesDTO dto = new WorkoutHasExercisesDTO();
+            dto.setId(row.getWorkoutHasExercisesId());
+            dto.setSets(row.getSets());
+            dto.setRepetitions(row.getRepetitions());
+            dto.setWeight(row.getWeight());
+            dto.setRestTime(row.getRestTime());
+            return dto;
+        }
+
         public static WorkoutHasExercises toEntity(WorkoutHasExercisesDTO dto) {
             WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
             workoutHasExercises.setId(dto.getId());
@@ -0,0 +1,99 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.CompletionChangeDTO;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.UserWorkoutStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the {@code user_workout_stats} rollup in step with {@code user_has_workouts}. Callers pass the
+ * rows they wrote inside their own transaction; changes are folded per user, UTC day and workout type
+ * and applied as additive upserts, so concurrent writers never overwrite each other's counts. Bulk deletes
+ * subtract the aggregate of the rows they are about to remove with a single statement instead.
+ */
+@Component
+public class WorkoutStatsRollup {
+    private final UserWorkoutStatsRepository userWorkoutStatsRepository;
+
+    @Autowired
+    public WorkoutStatsRollup(UserWorkoutStatsRepository userWorkoutStatsRepository) {
+        this.userWorkoutStatsRepository = userWorkoutStatsRepository;
+    }
+
+    public static LocalDate statDate(ZonedDateTime scheduledAt) {
+        return scheduledAt.withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    public void scheduled(Collection<UserHasWorkouts> scheduledWorkouts) {
+        apply(scheduledWorkouts, 1);
+    }
+
+    public void scheduled(UserHasWorkouts scheduledWorkout, WorkoutType workoutType) {
+        boolean completed = Boolean.TRUE.equals(scheduledWorkout.getCompleted());
+        userWorkoutStatsRepository.upsert(scheduledWorkout.getUser().getId(),
+                statDate(scheduledWorkout.getScheduledAt()),
+                workoutType.name(),
+                completed ? 1 : 0, completed ? 0 : 1);
+    }
+
+    public void unscheduled(Collection<UserHasWorkouts> scheduledWorkouts) {
+        apply(scheduledWorkouts, -1);
+    }
+
+    public void completionChanged(Collection<CompletionChangeDTO> changes, boolean completed) {
+        Map<Key, Long> deltas = new LinkedHashMap<>();
+        for (CompletionChangeDTO change : changes) {
+            Key key = new Key(change.getUserId(), statDate(change.getScheduledAt()), change.getWorkoutType());
+            deltas.merge(key, completed ? 1L : -1L, Long::sum);
+        }
+        deltas.forEach((key, delta) -> userWorkoutStatsRepository.upsert(
+                key.userId(), key.statDate(), key.workoutType().name(), delta, -delta));
+    }
+
+    public void unscheduledByWorkoutId(Long workoutId) {
+        userWorkoutStatsRepository.subtractAggregatedByWorkoutId(workoutId);
+    }
+
+    public void unscheduledByRecurringWorkoutId(Long recurringWorkoutId, LocalDate from) {
+        userWorkoutStatsRepository.subtractAggregatedByRecurringWorkoutId(recurringWorkoutId, from);
+    }
+
+    public void unscheduledByUserId(Long userId, ZonedDateTime from, ZonedDateTime to) {
+        userWorkoutStatsRepository.subtractAggregatedByUserIdAndScheduledAtBetween(userId, from, to);
+    }
+
+    public void rebuild() {
+        userWorkoutStatsRepository.deleteAllRows();
+        userWorkoutStatsRepository.insertAggregated();
+    }
+
+    public void rebuild(Long userId) {
+        userWorkoutStatsRepository.deleteAllByUserId(userId);
+        userWorkoutStatsRepository.insertAggregatedByUserId(userId);
+    }
+
+    private void apply(Collection<UserHasWorkouts> scheduledWorkouts, int sign) {
+        Map<Key, long[]> deltas = new LinkedHashMap<>();
+        for (UserHasWorkouts scheduledWorkout : scheduledWorkouts) {
+            Key key = new Key(scheduledWorkout.getUser().getId(),
+                    statDate(scheduledWorkout.getScheduledAt()),
+                    scheduledWorkout.getWorkout().getWorkoutType());
+            long[] counts = deltas.computeIfAbsent(key, k -> new long[2]);
+            counts[Boolean.TRUE.equals(scheduledWorkout.getCompleted()) ? 0 : 1] += sign;
+        }
+        deltas.forEach((key, counts) -> userWorkoutStatsRepository.upsert(
+                key.userId(), key.statDate(), key.workoutType().name(), counts[0], counts[1]));
+    }
+
+    private record Key(Long userId, LocalDate statDate, WorkoutType workoutType) {
+    }
+}
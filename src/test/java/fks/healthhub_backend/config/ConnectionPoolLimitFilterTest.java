@@ -0,0 +1,127 @@
+package fks.healthhub_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolLimitFilterTest {
+
+    private final ConnectionPoolLimitFilter filter =
+            new ConnectionPoolLimitFilter(new SimpleMeterRegistry(), 1, Duration.ofMillis(50),
+                    List.of("/actuator/**", "/api/exercise/**"));
+
+    @Test
+    void doFilter_admitsRequestWhenPermitIsFree() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), response, chain);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_rejectsRequestWhenPoolIsBusyPastQueueTimeout() throws Exception {
+        // Arrange
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/2"), response, chain);
+        release.countDown();
+        holder.join();
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_holdsPermitUntilAsyncRequestCompletes() throws Exception {
+        // Arrange
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/workout/export");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(),
+                (request, response) -> request.startAsync());
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        MockHttpServletResponse afterStreaming = new MockHttpServletResponse();
+        MockFilterChain afterStreamingChain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), whileStreaming, new MockFilterChain());
+        streaming.getAsyncContext().complete();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), afterStreaming, afterStreamingChain);
+
+        // Assert
+        assertEquals(503, whileStreaming.getStatus());
+        assertEquals(200, afterStreaming.getStatus());
+        assertNotNull(afterStreamingChain.getRequest());
+    }
+
+    @Test
+    void doFilter_skipsActuatorAndCatalogRequests() throws Exception {
+        // Arrange
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        MockHttpServletResponse exercise = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/exercise/1"), exercise, new MockFilterChain());
+        release.countDown();
+        holder.join();
+
+        // Assert
+        assertEquals(200, health.getStatus());
+        assertEquals(200, exercise.getStatus());
+    }
+}
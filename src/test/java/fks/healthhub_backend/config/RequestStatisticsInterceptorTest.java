@@ -0,0 +1,159 @@
+package fks.healthhub_backend.config;
+
+import fks.healthhub_backend.controller.UserController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RequestStatisticsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestStatistics requestStatistics = new RequestStatistics();
+    private final StatementBudgetProperties statementBudgetProperties = new StatementBudgetProperties();
+    private final RequestStatisticsInterceptor interceptor =
+            new RequestStatisticsInterceptor(requestStatistics, statementBudgetProperties, meterRegistry);
+
+    private HandlerMethod getUserHandler() throws NoSuchMethodException {
+        return new HandlerMethod(mock(UserController.class), UserController.class.getMethod("getUser", Long.class, WebRequest.class));
+    }
+
+    @Test
+    void afterCompletion_recordsStatementsAndEntityLoadsPerRoute() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/user/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+
+        // Act
+        interceptor.preHandle(request, response, handler);
+        requestStatistics.inspect("select 1");
+        requestStatistics.inspect("select 2");
+        requestStatistics.onLoad(new Object(), (Object) 1L, null, null, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Assert
+        DistributionSummary statements = meterRegistry.get("healthhub.request.statements")
+                .tag("controller", "UserController").tag("handler", "getUser").tag("method", "GET").tag("uri", "/api/user/{id}")
+                .summary();
+        DistributionSummary entities = meterRegistry.get("healthhub.request.entities.loaded").summary();
+        assertEquals(1, statements.count());
+        assertEquals(2.0, statements.totalAmount());
+        assertEquals(1.0, entities.totalAmount());
+        assertNull(requestStatistics.end());
+    }
+
+    @Test
+    void inspect_outsideRequestIsNotCounted() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+        requestStatistics.inspect("select 1");
+
+        // Act
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Assert
+        assertEquals(0.0, meterRegistry.get("healthhub.request.statements").summary().totalAmount());
+    }
+
+    @Test
+    void asyncDispatch_isNotRecordedTwice() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        // Act
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Assert
+        assertTrue(meterRegistry.find("healthhub.request.statements").summaries().isEmpty());
+    }
+
+    @Test
+    void afterCompletion_countsExceededBudget() throws Exception {
+        // Arrange
+        statementBudgetProperties.setEndpoints(Map.of("UserController.getUser", 1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+
+        // Act
+        interceptor.preHandle(request, response, handler);
+        requestStatistics.inspect("select * from workouts where id = 1");
+        requestStatistics.inspect("select * from workouts where id = 2");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Assert
+        Counter exceeded = meterRegistry.get("healthhub.request.statement.budget.exceeded")
+                .tag("controller", "UserController").tag("handler", "getUser").counter();
+        assertEquals(1.0, exceeded.count());
+    }
+
+    @Test
+    void inspect_failModeThrowsOnceBudgetIsExceeded() throws Exception {
+        // Arrange
+        statementBudgetProperties.setMode(StatementBudgetProperties.Mode.FAIL);
+        statementBudgetProperties.setEndpoints(Map.of("UserController.getUser", 1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+        interceptor.preHandle(request, response, handler);
+        requestStatistics.inspect("select * from workouts where id = 1");
+
+        // Act
+        StatementBudgetExceededException exception = assertThrows(StatementBudgetExceededException.class,
+                () -> requestStatistics.inspect("select * from workouts where id = 2"));
+        interceptor.afterCompletion(request, response, handler, exception);
+
+        // Assert
+        assertEquals("UserController.getUser ran 2 statements (budget 1), most repeated 2x: select * from workouts where id = ?",
+                exception.getMessage());
+    }
+
+    @Test
+    void preHandle_offModeNeverExceeds() throws Exception {
+        // Arrange
+        statementBudgetProperties.setMode(StatementBudgetProperties.Mode.OFF);
+        statementBudgetProperties.setDefaultBudget(0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = getUserHandler();
+
+        // Act
+        interceptor.preHandle(request, response, handler);
+        requestStatistics.inspect("select 1");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Assert
+        assertTrue(meterRegistry.find("healthhub.request.statement.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void shape_collapsesLiteralsAndInLists() {
+        // Act
+        String shape = RequestStatistics.shape("select *\n  from users where id in (1, 2, 3) and name = 'o''neil'");
+
+        // Assert
+        assertEquals("select * from users where id in (?, ...) and name = ?", shape);
+    }
+}
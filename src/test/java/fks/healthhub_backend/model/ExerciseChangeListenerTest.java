@@ -0,0 +1,54 @@
+package fks.healthhub_backend.model;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@RecordApplicationEvents
+class ExerciseChangeListenerTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private Exercise exercise;
+
+    @BeforeEach
+    void setUp() {
+        exercise = new Exercise();
+        exercise.setTitle("Bench Press");
+        exercise.getMuscleGroups().add(MuscleGroup.CHEST);
+        entityManager.persist(exercise);
+        entityManager.flush();
+        entityManager.clear();
+        events.clear();
+    }
+
+    @Test
+    void muscleGroupOnlyChange_publishesExerciseChangedEvent() {
+        // Arrange
+        Exercise loaded = entityManager.find(Exercise.class, exercise.getId());
+
+        // Act
+        loaded.getMuscleGroups().add(MuscleGroup.TRICEPS);
+        entityManager.flush();
+
+        // Assert
+        assertEquals(1, events.stream(ExerciseChangedEvent.class)
+                .filter(event -> event.exerciseId().equals(exercise.getId()))
+                .count());
+        assertEquals(1L, loaded.getVersion());
+    }
+}
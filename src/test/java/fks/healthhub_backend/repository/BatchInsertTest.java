@@ -0,0 +1,122 @@
+package fks.healthhub_backend.repository;
+
+import fks.healthhub_backend.model.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class BatchInsertTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    private Statistics statistics;
+    private User user;
+    private Workout workout;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setUsername("batch");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        workout = new Workout();
+        workout.setTitle("Batch");
+        workout.setWorkoutType(WorkoutType.STRENGTH);
+        workout.setUser(user);
+        workout.setCreatedAt(ZonedDateTime.now());
+        workout.setUpdatedAt(ZonedDateTime.now());
+        entityManager.persist(workout);
+
+        // The pooled optimizer's first sequence value only covers a single id; draw a full block for both
+        // sequences so the measured saves below need no sequence round trip.
+        for (int i = 0; i < 2; i++) {
+            userHasWorkoutsRepository.save(scheduledWorkout(ZonedDateTime.now()));
+            WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
+            workoutHasExercises.setWorkout(workout);
+            entityManager.persist(workoutHasExercises);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void recurringScheduleIsInsertedInOneBatch() {
+        // Arrange
+        user = entityManager.getReference(User.class, user.getId());
+        workout = entityManager.getReference(Workout.class, workout.getId());
+        List<UserHasWorkouts> scheduledWorkouts = new ArrayList<>();
+        for (int week = 0; week < 13; week++) {
+            scheduledWorkouts.add(scheduledWorkout(ZonedDateTime.now().plusWeeks(week)));
+        }
+
+        // Act
+        userHasWorkoutsRepository.saveAll(scheduledWorkouts);
+        entityManager.flush();
+
+        // Assert
+        assertEquals(13, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void workoutExercisesAreInsertedInOneBatch() {
+        // Arrange
+        Workout newWorkout = new Workout();
+        newWorkout.setTitle("Many exercises");
+        newWorkout.setWorkoutType(WorkoutType.CARDIO);
+        newWorkout.setUser(entityManager.getReference(User.class, user.getId()));
+        newWorkout.setCreatedAt(ZonedDateTime.now());
+        newWorkout.setUpdatedAt(ZonedDateTime.now());
+        for (int i = 0; i < 20; i++) {
+            WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
+            workoutHasExercises.setWorkout(newWorkout);
+            workoutHasExercises.setSets(3);
+            workoutHasExercises.setRepetitions(10);
+            newWorkout.getWorkoutHasExercises().add(workoutHasExercises);
+        }
+
+        // Act
+        workoutRepository.save(newWorkout);
+        entityManager.flush();
+
+        // Assert
+        assertEquals(21, statistics.getEntityInsertCount());
+        // The identity insert of the workout and one batched insert of its exercises.
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private UserHasWorkouts scheduledWorkout(ZonedDateTime scheduledAt) {
+        UserHasWorkouts scheduledWorkout = new UserHasWorkouts();
+        scheduledWorkout.setUser(user);
+        scheduledWorkout.setWorkout(workout);
+        scheduledWorkout.setScheduledAt(scheduledAt);
+        scheduledWorkout.setCompleted(false);
+        return scheduledWorkout;
+    }
+}
@@ -0,0 +1,125 @@
+package fks.healthhub_backend.repository;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import fks.healthhub_backend.config.RequestStatistics;
+import fks.healthhub_backend.config.SecondLevelCacheConfig;
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.MuscleGroup;
+import fks.healthhub_backend.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=fks.healthhub_backend.config.RequestStatistics",
+        "spring.jpa.show-sql=false"
+})
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager secondLevelCacheManager;
+
+    private final RequestStatistics requestStatistics = new RequestStatistics();
+    private Exercise exercise;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        exercise = new Exercise();
+        exercise.setTitle("Squat");
+        exercise.getMuscleGroups().add(MuscleGroup.values()[0]);
+        exercise = exerciseRepository.save(exercise);
+        user = new User();
+        user.setUsername("cached");
+        user.setPassword("secret");
+        user = userRepository.save(user);
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exerciseRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private int statements(Runnable work) {
+        requestStatistics.begin();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+            return requestStatistics.end().statements();
+        } finally {
+            requestStatistics.end();
+        }
+    }
+
+    @Test
+    void findById_repeatedLookupIsServedFromCache() {
+        // Arrange
+        statements(() -> exerciseRepository.findById(exercise.getId()).orElseThrow().getMuscleGroups().size());
+
+        // Act
+        int statements = statements(() -> {
+            Exercise cached = exerciseRepository.findById(exercise.getId()).orElseThrow();
+            assertEquals("Squat", cached.getTitle());
+            assertEquals(1, cached.getMuscleGroups().size());
+            assertEquals("cached", userRepository.findById(user.getId()).orElseThrow().getUsername());
+        });
+
+        // Assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void findByIdIn_repeatedQueryIsServedFromQueryCache() {
+        // Arrange
+        statements(() -> exerciseRepository.findByIdIn(List.of(exercise.getId())));
+
+        // Act
+        int statements = statements(() -> assertEquals(1, exerciseRepository.findByIdIn(List.of(exercise.getId())).size()));
+
+        // Assert
+        assertEquals(0, statements);
+    }
+
+    @Test
+    void regions_areBoundedAsConfigured() {
+        // Act
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<Object, Object> exercises = secondLevelCacheManager.getCache("exercises")
+                .getConfiguration(CaffeineConfiguration.class);
+
+        // Assert
+        assertEquals(OptionalLong.of(5000), exercises.getMaximumSize());
+        assertTrue(exercises.getExpireAfterWrite().isPresent());
+        assertTrue(exercises.isStatisticsEnabled());
+    }
+}
@@ -0,0 +1,267 @@
+package fks.healthhub_backend.repository;
+
+import fks.healthhub_backend.config.RequestStatistics;
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.model.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the read paths behind the detail and calendar endpoints against a realistic graph and fails when one of
+ * them needs more statements than its budget, so an association change that introduces N+1 loading breaks
+ * the build instead of production latency.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=fks.healthhub_backend.config.RequestStatistics",
+        "spring.jpa.show-sql=false"
+})
+class StatementBudgetTest {
+    private static final ZonedDateTime MONDAY = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @Autowired
+    private RecurringWorkoutRepository recurringWorkoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    private final RequestStatistics requestStatistics = new RequestStatistics();
+    private User user;
+    private Workout workout;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("budget");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        for (int w = 0; w < 5; w++) {
+            User owner = new User();
+            owner.setUsername("owner" + w);
+            owner.setPassword("secret");
+            entityManager.persist(owner);
+
+            Workout current = new Workout();
+            current.setTitle("Workout " + w);
+            current.setWorkoutType(WorkoutType.values()[w % WorkoutType.values().length]);
+            current.setUser(owner);
+            current.setCreatedAt(MONDAY);
+            current.setUpdatedAt(MONDAY);
+            entityManager.persist(current);
+            for (int e = 0; e < 4; e++) {
+                Exercise exercise = new Exercise();
+                exercise.setTitle("Exercise " + w + "-" + e);
+                exercise.getMuscleGroups().add(MuscleGroup.values()[e % MuscleGroup.values().length]);
+                entityManager.persist(exercise);
+
+                WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
+                workoutHasExercises.setWorkout(current);
+                workoutHasExercises.setExercise(exercise);
+                entityManager.persist(workoutHasExercises);
+            }
+            for (int day = 0; day < 6; day++) {
+                UserHasWorkouts scheduled = new UserHasWorkouts();
+                scheduled.setUser(user);
+                scheduled.setWorkout(current);
+                scheduled.setScheduledAt(MONDAY.plusDays(day).plusHours(w));
+                scheduled.setCompleted(day % 2 == 0);
+                entityManager.persist(scheduled);
+            }
+
+            RecurringWorkout recurringWorkout = new RecurringWorkout();
+            recurringWorkout.setUser(user);
+            recurringWorkout.setWorkout(current);
+            recurringWorkout.setDayOfWeek(DayOfWeek.of(w + 1));
+            recurringWorkout.setStartDate(MONDAY.toLocalDate().minusWeeks(4));
+            recurringWorkout.getExceptions().add(MONDAY.toLocalDate().minusWeeks(1).plusDays(w));
+            entityManager.persist(recurringWorkout);
+            workout = current;
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void assertWithinBudget(int budget, Runnable work) {
+        requestStatistics.begin("test", budget, false);
+        RequestStatistics.Counts counts;
+        try {
+            work.run();
+        } finally {
+            counts = requestStatistics.end();
+        }
+        assertTrue(counts.statements() > 0 || budget == 0, "nothing was counted; is the inspector registered?");
+        assertFalse(counts.exceeded(), counts.describe());
+    }
+
+    @Test
+    void scheduledWorkouts_loadInOneStatement() {
+        assertWithinBudget(1, () -> userHasWorkoutsRepository.findByUserId(user.getId()).forEach(scheduled ->
+                assertNotNull(scheduled.getWorkout().getUser().getUsername() + scheduled.getUser().getUsername())));
+    }
+
+    @Test
+    void scheduledWeek_loadsInOneStatement() {
+        assertWithinBudget(1, () -> userHasWorkoutsRepository
+                .findByUserIdAndScheduledAtBetween(user.getId(), MONDAY, MONDAY.plusDays(7))
+                .forEach(scheduled -> assertNotNull(scheduled.getWorkout().getUser().getUsername())));
+    }
+
+    @Test
+    void recurringRules_loadInOneStatement() {
+        LocalDate from = MONDAY.toLocalDate().minusWeeks(2);
+        assertWithinBudget(1, () -> recurringWorkoutRepository.findActiveByUserId(user.getId(), from, from.plusWeeks(4))
+                .forEach(rule -> assertNotNull(rule.getWorkout().getUser().getUsername() + rule.getExceptions().size())));
+    }
+
+    @Test
+    void rangeCancellation_skipsRecurringOccurrencesInThreeStatements() {
+        LocalDate from = MONDAY.toLocalDate().plusWeeks(1);
+        assertWithinBudget(3, () -> {
+            List<RecurringWorkout> rules = recurringWorkoutRepository.findActiveWithExceptionsByUserId(user.getId(), from, from.plusWeeks(2));
+            rules.forEach(rule -> rule.getExceptions().addAll(rule.occurrencesBetween(from, from.plusWeeks(2).minusDays(1))));
+            assertEquals(5, recurringWorkoutRepository.updateUpdatedAtByIdIn(
+                    rules.stream().map(RecurringWorkout::getId).toList(), MONDAY));
+            entityManager.flush();
+        });
+        entityManager.clear();
+        recurringWorkoutRepository.findActiveWithExceptionsByUserId(user.getId(), from, from.plusWeeks(2))
+                .forEach(rule -> assertEquals(3, rule.getExceptions().size()));
+    }
+
+    @Test
+    void userDetail_loadsInOneStatement() {
+        assertWithinBudget(1, () -> userRepository.findDetailById(user.getId()).orElseThrow().getUserHasWorkouts()
+                .forEach(scheduled -> assertNotNull(scheduled.getWorkout().getUser().getUsername())));
+    }
+
+    @Test
+    void workoutDetail_loadsInOneStatement() {
+        assertWithinBudget(1, () -> assertEquals(4, workoutRepository.findDetailRowsById(workout.getId()).size()));
+    }
+
+    @Test
+    void workoutPage_loadsInOneStatement() {
+        assertWithinBudget(1, () -> workoutRepository.findPageOrderById(0L, PageRequest.ofSize(10))
+                .forEach(page -> assertNotNull(page.getUser().getUsername())));
+    }
+
+    @Test
+    void workoutPageWithCollections_loadsInThreeStatements() {
+        assertWithinBudget(3, () -> {
+            List<Workout> workouts = workoutRepository.findPageOrderById(0L, PageRequest.ofSize(10));
+            workoutRepository.fetchWorkoutHasExercises(workouts);
+            workoutRepository.fetchUserHasWorkouts(workouts);
+            assertEquals(5, workouts.size());
+            workouts.forEach(listed -> {
+                assertEquals(4, listed.getWorkoutHasExercises().size());
+                assertEquals(6, listed.getUserHasWorkouts().size());
+                listed.getUserHasWorkouts().forEach(scheduled -> assertNotNull(scheduled.getUser().getUsername()));
+            });
+        });
+    }
+
+    @Test
+    void exerciseCatalog_loadsInOneStatement() {
+        assertWithinBudget(1, () -> exerciseRepository.findAllWithMuscleGroups()
+                .forEach(exercise -> assertFalse(exercise.getMuscleGroups().isEmpty())));
+    }
+
+    @Test
+    void scheduling_wiresReferencesWithoutLoadingTheWorkout() {
+        assertWithinBudget(4, () -> {
+            assertTrue(userRepository.existsById(user.getId()));
+            assertEquals(WorkoutType.values()[4 % WorkoutType.values().length],
+                    workoutRepository.findWorkoutTypeById(workout.getId()).orElseThrow());
+            UserHasWorkouts scheduled = new UserHasWorkouts();
+            scheduled.setUser(userRepository.getReferenceById(user.getId()));
+            scheduled.setWorkout(workoutRepository.getReferenceById(workout.getId()));
+            scheduled.setScheduledAt(MONDAY.plusWeeks(1));
+            scheduled.setCompleted(false);
+            userHasWorkoutsRepository.save(scheduled);
+            entityManager.flush();
+        });
+    }
+
+    @Test
+    void workoutPatch_updatesInTwoStatements() {
+        assertWithinBudget(2, () -> {
+            Workout patched = workoutRepository.findById(workout.getId()).orElseThrow();
+            patched.setTitle("Patched");
+            entityManager.flush();
+        });
+    }
+
+    @Test
+    void versionLookups_runInOneStatement() {
+        assertWithinBudget(1, () -> assertEquals(4, workoutRepository.findVersionById(workout.getId()).orElseThrow().getCount()));
+        assertWithinBudget(1, () -> assertEquals(30, userRepository.findVersionById(user.getId()).orElseThrow().getCount()));
+    }
+
+    @Test
+    void weekVersion_runsInTwoStatements() {
+        LocalDate monday = MONDAY.toLocalDate();
+        assertWithinBudget(2, () -> {
+            assertEquals(30, userHasWorkoutsRepository.findWeekVersionByUserId(
+                    user.getId(), MONDAY.minusHours(8), MONDAY.plusDays(7), monday, monday.plusDays(6)).getCount());
+            assertEquals(5, recurringWorkoutRepository.findActiveVersionByUserId(user.getId(), monday, monday.plusDays(6)).getCount());
+        });
+        assertEquals(0, recurringWorkoutRepository.findActiveVersionByUserId(-1L, monday, monday.plusDays(6)).getCount());
+    }
+
+    @Test
+    void userVersion_changesWhenAScheduledWorkoutIsRemoved() {
+        // Arrange
+        VersionDTO before = userRepository.findVersionById(user.getId()).orElseThrow();
+
+        // Act
+        userHasWorkoutsRepository.deleteAllInBatch(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(
+                user.getId(), MONDAY, MONDAY.plusMinutes(30)));
+        VersionDTO after = userRepository.findVersionById(user.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(before.getCount() - 1, after.getCount());
+        assertEquals(before.getTimestamps(), after.getTimestamps());
+        assertTrue(userRepository.findVersionById(-1L).isEmpty());
+    }
+
+    @Test
+    void exceededBudget_reportsTheRepeatedShape() {
+        // Arrange
+        requestStatistics.begin("lazy", 2, false);
+
+        // Act
+        userHasWorkoutsRepository.findAll().forEach(scheduled -> scheduled.getWorkout().getTitle());
+        RequestStatistics.Counts counts = requestStatistics.end();
+
+        // Assert
+        assertTrue(counts.exceeded());
+        assertEquals(5, counts.mostRepeatedShape().orElseThrow().getValue());
+        assertTrue(counts.describe().startsWith("lazy ran 6 statements (budget 2), most repeated 5x: select"),
+                counts.describe());
+    }
+}
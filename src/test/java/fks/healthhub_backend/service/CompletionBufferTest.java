@@ -0,0 +1,121 @@
+package fks.healthhub_backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CompletionBufferTest implements AutoCloseable {
+
+    @Mock
+    private ScheduledWorkoutCompletion scheduledWorkoutCompletion;
+
+    @InjectMocks
+    private CompletionBuffer completionBuffer;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void flush_coalescesRepeatedTogglesIntoOneUpdatePerValue() {
+        // Arrange
+        completionBuffer.submit(1L, true);
+        completionBuffer.submit(1L, false);
+        completionBuffer.submit(1L, true);
+        completionBuffer.submit(2L, true);
+        completionBuffer.submit(3L, false);
+
+        // Act
+        completionBuffer.flush();
+
+        // Assert
+        verify(scheduledWorkoutCompletion).complete(List.of(1L, 2L), true);
+        verify(scheduledWorkoutCompletion).complete(List.of(3L), false);
+        verifyNoMoreInteractions(scheduledWorkoutCompletion);
+    }
+
+    @Test
+    void flush_emptyBufferWritesNothing() {
+        // Act
+        completionBuffer.flush();
+
+        // Assert
+        verify(scheduledWorkoutCompletion, never()).complete(anyList(), anyBoolean());
+    }
+
+    @Test
+    void flush_failedBatchIsRetriedWithoutOverwritingNewerToggles() {
+        // Arrange
+        completionBuffer.submit(1L, true);
+        completionBuffer.submit(2L, true);
+        when(scheduledWorkoutCompletion.complete(List.of(1L, 2L), true)).thenThrow(new QueryTimeoutException("timeout"));
+        completionBuffer.flush();
+        completionBuffer.submit(2L, false);
+        reset(scheduledWorkoutCompletion);
+
+        // Act
+        completionBuffer.flush();
+
+        // Assert
+        verify(scheduledWorkoutCompletion).complete(List.of(1L), true);
+        verify(scheduledWorkoutCompletion).complete(List.of(2L), false);
+        verifyNoMoreInteractions(scheduledWorkoutCompletion);
+    }
+
+    @Test
+    void flush_nonTransientFailureDropsOnlyTheOffendingToggle() {
+        // Arrange
+        completionBuffer.submit(1L, true);
+        completionBuffer.submit(2L, true);
+        completionBuffer.submit(3L, true);
+        when(scheduledWorkoutCompletion.complete(anyList(), eq(true))).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            if (ids.contains(2L)) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            return ids.size();
+        });
+
+        // Act
+        completionBuffer.flush();
+        completionBuffer.flush();
+
+        // Assert
+        verify(scheduledWorkoutCompletion).complete(List.of(1L), true);
+        verify(scheduledWorkoutCompletion).complete(List.of(3L), true);
+        verify(scheduledWorkoutCompletion, times(1)).complete(List.of(2L), true);
+    }
+
+    @Test
+    void flush_transientFailureIsRetriedAtMostMaxAttempts() {
+        // Arrange
+        completionBuffer.submit(1L, true);
+        when(scheduledWorkoutCompletion.complete(List.of(1L), true)).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act
+        for (int i = 0; i < CompletionBuffer.MAX_ATTEMPTS + 2; i++) {
+            completionBuffer.flush();
+        }
+
+        // Assert
+        verify(scheduledWorkoutCompletion, times(CompletionBuffer.MAX_ATTEMPTS)).complete(List.of(1L), true);
+    }
+}
@@ -0,0 +1,100 @@
+package fks.healthhub_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseChangedEvent;
+import fks.healthhub_backend.repository.ExerciseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExerciseCatalogTest implements AutoCloseable {
+
+    @Mock
+    private ExerciseRepository exerciseRepository;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private ExerciseCatalog exerciseCatalog;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        exerciseCatalog = new ExerciseCatalog(exerciseRepository, objectMapper);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    private Exercise exercise(Long id, String title) {
+        Exercise exercise = new Exercise();
+        exercise.setId(id);
+        exercise.setTitle(title);
+        return exercise;
+    }
+
+    @Test
+    void onExerciseChanged_updatedExerciseReplacesSnapshot() throws Exception {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise(1L, "Push Up"), exercise(2L, "Squat")));
+        ExerciseCatalog.Snapshot before = exerciseCatalog.snapshot();
+        when(exerciseRepository.findByIdWithMuscleGroups(2L)).thenReturn(Optional.of(exercise(2L, "Front Squat")));
+
+        // Act
+        exerciseCatalog.onExerciseChanged(new ExerciseChangedEvent(2L));
+        ExerciseCatalog.Snapshot after = exerciseCatalog.snapshot();
+
+        // Assert
+        assertNotSame(before, after);
+        assertEquals("Squat", before.find(2L).orElseThrow().getTitle());
+        assertEquals("Front Squat", after.find(2L).orElseThrow().getTitle());
+        assertArrayEquals(before.json(1L).orElseThrow(), after.json(1L).orElseThrow());
+        assertEquals("Front Squat", after.page(KeysetCursor.first("id"), 10).get(1).getTitle());
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
+    }
+
+    @Test
+    void onExerciseChanged_deletedExerciseIsRemoved() throws Exception {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise(1L, "Push Up"), exercise(2L, "Squat")));
+        exerciseCatalog.snapshot();
+        when(exerciseRepository.findByIdWithMuscleGroups(1L)).thenReturn(Optional.empty());
+
+        // Act
+        exerciseCatalog.onExerciseChanged(new ExerciseChangedEvent(1L));
+
+        // Assert
+        ExerciseCatalog.Snapshot snapshot = exerciseCatalog.snapshot();
+        assertTrue(snapshot.find(1L).isEmpty());
+        assertEquals(List.of(exercise(2L, "Squat")), snapshot.exercises());
+        assertEquals(1, snapshot.page(KeysetCursor.first("title"), 10).size());
+    }
+
+    @Test
+    void snapshot_handsOutCopiesOfTheLoadedExercises() {
+        // Arrange
+        Exercise loaded = exercise(1L, "Bench Press");
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(loaded));
+        ExerciseCatalog.Snapshot snapshot = exerciseCatalog.snapshot();
+
+        // Act
+        loaded.setTitle("Changed after loading");
+        snapshot.find(1L).orElseThrow().setTitle("Changed by a reader");
+
+        // Assert
+        assertEquals("Bench Press", snapshot.find(1L).orElseThrow().getTitle());
+        assertEquals("Bench Press", snapshot.exercises().get(0).getTitle());
+    }
+}
@@ -2,20 +2,22 @@ package fks.healthhub_backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import fks.healthhub_backend.dto.ExerciseSearchResultDTO;
 import fks.healthhub_backend.model.Exercise;
+import fks.healthhub_backend.model.ExerciseDifficulty;
 import fks.healthhub_backend.model.MuscleGroup;
 import fks.healthhub_backend.repository.ExerciseRepository;
 import jakarta.persistence.NoResultException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,10 +27,8 @@ class ExerciseServiceTest implements AutoCloseable {
     @Mock
     private ExerciseRepository exerciseRepository;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
 
-    @InjectMocks
     private ExerciseService exerciseService;
 
     private AutoCloseable mocks;
@@ -36,6 +36,7 @@ class ExerciseServiceTest implements AutoCloseable {
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
+        exerciseService = new ExerciseService(new ExerciseCatalog(exerciseRepository, objectMapper));
     }
 
     @Override
@@ -43,25 +44,44 @@ class ExerciseServiceTest implements AutoCloseable {
         mocks.close();
     }
 
+    private Exercise exercise(Long id, String title, MuscleGroup... muscleGroups) {
+        Exercise exercise = new Exercise();
+        exercise.setId(id);
+        exercise.setTitle(title);
+        exercise.setMuscleGroups(Set.of(muscleGroups));
+        return exercise;
+    }
+
     @Test
-    void getExercise() {
+    void getExercise() throws Exception {
         // Arrange
         Long exerciseId = 1L;
-        Exercise exercise = new Exercise();
-        exercise.setId(exerciseId);
-        JsonNode exerciseJson = mock(JsonNode.class);
+        Exercise exercise = exercise(exerciseId, "Push Up", MuscleGroup.CHEST);
 
-        when(exerciseRepository.findById(exerciseId)).thenReturn(Optional.of(exercise));
-        when(objectMapper.valueToTree(exercise)).thenReturn(exerciseJson);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise));
 
         // Act
-        JsonNode result = exerciseService.getExercise(exerciseId);
+        byte[] result = exerciseService.getExercise(exerciseId);
 
         // Assert
         assertNotNull(result);
-        assertEquals(exerciseJson, result);
-        verify(exerciseRepository, times(1)).findById(exerciseId);
-        verify(objectMapper, times(1)).valueToTree(exercise);
+        assertArrayEquals(objectMapper.writeValueAsBytes(exercise), result);
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
+    }
+
+    @Test
+    void getExercise_servedFromSnapshot() {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise(1L, "Push Up")));
+
+        // Act
+        exerciseService.getExercise(1L);
+        exerciseService.getExercise(1L);
+        exerciseService.getAllExercises(50, null, "id");
+
+        // Assert
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
+        verify(exerciseRepository, never()).findById(any());
     }
 
     @Test
@@ -69,152 +89,256 @@ class ExerciseServiceTest implements AutoCloseable {
         // Arrange
         Long exerciseId = 1L;
 
-        when(exerciseRepository.findById(exerciseId)).thenReturn(Optional.empty());
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(Collections.emptyList());
 
         // Act
         NoResultException exception = assertThrows(NoResultException.class, () -> exerciseService.getExercise(exerciseId));
 
         // Assert
         assertEquals("Exercise with id: 1 does not exist", exception.getMessage());
-        verify(exerciseRepository, times(1)).findById(exerciseId);
-        verify(objectMapper, never()).valueToTree(any());
     }
 
     @Test
-    void getAllExercises() {
+    void getAllExercises() throws Exception {
         // Arrange
-        Exercise exercise1 = new Exercise();
-        Exercise exercise2 = new Exercise();
+        Exercise exercise1 = exercise(2L, "Squat", MuscleGroup.LEGS);
+        Exercise exercise2 = exercise(1L, "Push Up", MuscleGroup.CHEST);
         List<Exercise> exercises = Arrays.asList(exercise1, exercise2);
 
-        when(exerciseRepository.findAll()).thenReturn(exercises);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(exercises);
 
         // Act
-        List<Exercise> result = exerciseService.getAllExercises();
+        JsonNode result = objectMapper.readTree(exerciseService.getAllExercises(50, null, "id"));
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(exercises, result);
-        verify(exerciseRepository, times(1)).findAll();
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(List.of(exercise2, exercise1))), result.get("items"));
+        assertTrue(result.get("next").isNull());
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
+    }
+
+    @Test
+    void getAllExercises_pagedByTitle() throws Exception {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(
+                exercise(1L, "Squat"), exercise(2L, "Bench Press"), exercise(3L, "Deadlift")));
+
+        // Act
+        JsonNode first = objectMapper.readTree(exerciseService.getAllExercises(2, null, "title"));
+        JsonNode second = objectMapper.readTree(exerciseService.getAllExercises(2, first.get("next").asText(), "title"));
+
+        // Assert
+        assertEquals(2, first.get("items").size());
+        assertEquals("Bench Press", first.get("items").get(0).get("title").asText());
+        assertEquals("Deadlift", first.get("items").get(1).get("title").asText());
+        assertEquals(1, second.get("items").size());
+        assertEquals("Squat", second.get("items").get(0).get("title").asText());
+        assertTrue(second.get("next").isNull());
     }
 
     @Test
-    void getAllExercises_empty() {
+    void getAllExercises_empty() throws Exception {
         // Arrange
-        when(exerciseRepository.findAll()).thenReturn(Collections.emptyList());
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(Collections.emptyList());
 
         // Act
-        List<Exercise> result = exerciseService.getAllExercises();
+        byte[] result = exerciseService.getAllExercises(50, null, "id");
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(exerciseRepository, times(1)).findAll();
+        assertEquals(0, objectMapper.readTree(result).get("items").size());
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
     }
 
     @Test
     void getExercisesByMuscleGroup() {
         // Arrange
-        MuscleGroup muscleGroup = MuscleGroup.CHEST;
-        Exercise exercise1 = new Exercise();
-        Exercise exercise2 = new Exercise();
-        List<Exercise> exercises = Arrays.asList(exercise1, exercise2);
+        Exercise exercise1 = exercise(1L, "Push Up", MuscleGroup.CHEST, MuscleGroup.TRICEPS);
+        Exercise exercise2 = exercise(2L, "Bench Press", MuscleGroup.CHEST);
+        Exercise exercise3 = exercise(3L, "Squat", MuscleGroup.LEGS);
 
-        when(exerciseRepository.findAllByMuscleGroup(muscleGroup)).thenReturn(exercises);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2, exercise3));
 
         // Act
-        List<Exercise> result = exerciseService.getExercisesByMuscleGroup(muscleGroup);
+        ExerciseSearchResultDTO result = exerciseService.getExercisesByMuscleGroup(Set.of(MuscleGroup.CHEST), ExerciseFacetIndex.Match.ANY, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(exercises, result);
-        verify(exerciseRepository, times(1)).findAllByMuscleGroup(muscleGroup);
+        assertEquals(List.of(exercise1, exercise2), result.getExercises());
+        assertEquals(2, result.getMuscleGroupCounts().get(MuscleGroup.CHEST));
+        assertEquals(1, result.getMuscleGroupCounts().get(MuscleGroup.TRICEPS));
+        assertEquals(0, result.getMuscleGroupCounts().get(MuscleGroup.LEGS));
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
     }
 
     @Test
-    void getExercisesByMuscleGroup_empty() {
+    void getExercisesByMuscleGroup_anyAndAll() {
         // Arrange
-        MuscleGroup muscleGroup = MuscleGroup.CHEST;
+        Exercise exercise1 = exercise(1L, "Push Up", MuscleGroup.CHEST, MuscleGroup.TRICEPS);
+        Exercise exercise2 = exercise(2L, "Bench Press", MuscleGroup.CHEST);
+        Exercise exercise3 = exercise(3L, "Dips", MuscleGroup.TRICEPS);
 
-        when(exerciseRepository.findAllByMuscleGroup(muscleGroup)).thenReturn(Collections.emptyList());
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2, exercise3));
 
         // Act
-        List<Exercise> result = exerciseService.getExercisesByMuscleGroup(muscleGroup);
+        ExerciseSearchResultDTO any = exerciseService.getExercisesByMuscleGroup(Set.of(MuscleGroup.CHEST, MuscleGroup.TRICEPS), ExerciseFacetIndex.Match.ANY, null);
+        ExerciseSearchResultDTO all = exerciseService.getExercisesByMuscleGroup(Set.of(MuscleGroup.CHEST, MuscleGroup.TRICEPS), ExerciseFacetIndex.Match.ALL, null);
+
+        // Assert
+        assertEquals(List.of(exercise1, exercise2, exercise3), any.getExercises());
+        assertEquals(List.of(exercise1), all.getExercises());
+    }
+
+    @Test
+    void getExercisesByMuscleGroup_withDifficulty() {
+        // Arrange
+        Exercise exercise1 = exercise(1L, "Push Up", MuscleGroup.CHEST);
+        exercise1.setExerciseDifficulty(ExerciseDifficulty.BEGINNER);
+        Exercise exercise2 = exercise(2L, "Bench Press", MuscleGroup.CHEST);
+        exercise2.setExerciseDifficulty(ExerciseDifficulty.INTERMEDIATE);
+        Exercise exercise3 = exercise(3L, "Planche Push Up", MuscleGroup.CHEST);
+        exercise3.setExerciseDifficulty(ExerciseDifficulty.ADVANCED);
+
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2, exercise3));
+
+        // Act
+        ExerciseSearchResultDTO result = exerciseService.getExercisesByMuscleGroup(Set.of(MuscleGroup.CHEST), ExerciseFacetIndex.Match.ANY,
+                Set.of(ExerciseDifficulty.BEGINNER, ExerciseDifficulty.ADVANCED));
+
+        // Assert
+        assertEquals(List.of(exercise1, exercise3), result.getExercises());
+        assertEquals(1, result.getDifficultyCounts().get(ExerciseDifficulty.BEGINNER));
+        assertEquals(0, result.getDifficultyCounts().get(ExerciseDifficulty.INTERMEDIATE));
+        assertEquals(1, result.getDifficultyCounts().get(ExerciseDifficulty.ADVANCED));
+    }
+
+    @Test
+    void getExercisesByMuscleGroup_empty() {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise(3L, "Squat", MuscleGroup.LEGS)));
+
+        // Act
+        ExerciseSearchResultDTO result = exerciseService.getExercisesByMuscleGroup(Set.of(MuscleGroup.CHEST), ExerciseFacetIndex.Match.ANY, null);
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(exerciseRepository, times(1)).findAllByMuscleGroup(muscleGroup);
+        assertTrue(result.getExercises().isEmpty());
     }
 
     @Test
     void getExercisesByMuscleGroup_invalidGroup() {
-        // Arrange
-        MuscleGroup muscleGroup = null;
+        // Act
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class, () -> exerciseService.getExercisesByMuscleGroup(null, ExerciseFacetIndex.Match.ANY, null));
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class, () -> exerciseService.getExercisesByMuscleGroup(Set.of(), ExerciseFacetIndex.Match.ANY, null));
 
-        // Act & Assert
-        assertThrows(IllegalArgumentException.class, () -> exerciseService.getExercisesByMuscleGroup(muscleGroup));
+        // Assert
+        assertEquals("Muscle group cannot be null", missing.getMessage());
+        assertEquals("Muscle groups must not be empty", empty.getMessage());
     }
 
     @Test
     void getExercisesByTitle() {
         // Arrange
-        String title = "push";
-        Exercise exercise1 = new Exercise();
-        exercise1.setTitle("Push Up");
-        Exercise exercise2 = new Exercise();
-        exercise2.setTitle("Push Down");
-        List<Exercise> exercises = Arrays.asList(exercise1, exercise2);
+        Exercise exercise1 = exercise(1L, "Tricep Push Down");
+        Exercise exercise2 = exercise(2L, "Push Up");
+        Exercise exercise3 = exercise(3L, "Squat");
 
-        when(exerciseRepository.findByTitleContaining(title)).thenReturn(exercises);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2, exercise3));
 
         // Act
-        List<Exercise> result = exerciseService.getExercisesByTitle(title);
+        List<Exercise> result = exerciseService.getExercisesByTitle("PUSH", 20);
 
         // Assert
         assertNotNull(result);
+        assertEquals(List.of(exercise2, exercise1), result);
+        verify(exerciseRepository, times(1)).findAllWithMuscleGroups();
+    }
+
+    @Test
+    void getExercisesByTitle_matchesDescriptionAndRanksTitleFirst() {
+        // Arrange
+        Exercise exercise1 = exercise(1L, "Plank");
+        exercise1.setDescription("Hold a push up position");
+        Exercise exercise2 = exercise(2L, "Incline Push Up");
+
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2));
+
+        // Act
+        List<Exercise> result = exerciseService.getExercisesByTitle("push up", 20);
+
+        // Assert
+        assertEquals(List.of(exercise2, exercise1), result);
+    }
+
+    @Test
+    void getExercisesByTitle_shortQueryMatchesWordPrefix() {
+        // Arrange
+        Exercise exercise1 = exercise(1L, "Push Up");
+        Exercise exercise2 = exercise(2L, "Pull Up");
+        Exercise exercise3 = exercise(3L, "Squat");
+
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2, exercise3));
+
+        // Act
+        List<Exercise> result = exerciseService.getExercisesByTitle("pu", 20);
+
+        // Assert
+        assertEquals(List.of(exercise1, exercise2), result);
+    }
+
+    @Test
+    void getExercisesByTitle_limit() {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(
+                exercise(1L, "Push Up"), exercise(2L, "Push Press"), exercise(3L, "Push Down")));
+
+        // Act
+        List<Exercise> result = exerciseService.getExercisesByTitle("push", 2);
+
+        // Assert
         assertEquals(2, result.size());
-        assertEquals(exercises, result);
-        verify(exerciseRepository, times(1)).findByTitleContaining(title);
+        assertThrows(IllegalArgumentException.class, () -> exerciseService.getExercisesByTitle("push", 0));
     }
 
     @Test
     void getExercisesByTitle_noMatch() {
         // Arrange
-        String title = "xyz";
-        List<Exercise> exercises = Collections.emptyList();
-
-        when(exerciseRepository.findByTitleContaining(title)).thenReturn(exercises);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise(1L, "Push Up")));
 
         // Act
-        List<Exercise> result = exerciseService.getExercisesByTitle(title);
+        List<Exercise> result = exerciseService.getExercisesByTitle("xyz", 20);
 
         // Assert
         assertNotNull(result);
         assertEquals(0, result.size());
-        assertEquals(exercises, result);
-        verify(exerciseRepository, times(1)).findByTitleContaining(title);
     }
 
     @Test
     void getExercisesByTitle_emptyString() {
         // Arrange
-        String title = "";
-        Exercise exercise1 = new Exercise();
-        Exercise exercise2 = new Exercise();
-        List<Exercise> exercises = Arrays.asList(exercise1, exercise2);
+        Exercise exercise1 = exercise(1L, "Push Up");
+        Exercise exercise2 = exercise(2L, "Squat");
 
-        when(exerciseRepository.findByTitleContaining(title)).thenReturn(exercises);
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(exercise1, exercise2));
 
         // Act
-        List<Exercise> result = exerciseService.getExercisesByTitle(title);
+        List<Exercise> result = exerciseService.getExercisesByTitle("", 20);
 
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals(exercises, result);
-        verify(exerciseRepository, times(1)).findByTitleContaining(title);
+    }
+
+    @Test
+    void getExerciseTitleSuggestions() {
+        // Arrange
+        when(exerciseRepository.findAllWithMuscleGroups()).thenReturn(List.of(
+                exercise(1L, "Incline Bench Press"), exercise(2L, "Bench Press"), exercise(3L, "Squat")));
+
+        // Act
+        List<String> result = exerciseService.getExerciseTitleSuggestions("ben", 10);
+
+        // Assert
+        assertEquals(List.of("Bench Press", "Incline Bench Press"), result);
     }
 }
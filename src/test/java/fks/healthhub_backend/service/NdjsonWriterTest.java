@@ -0,0 +1,64 @@
+package fks.healthhub_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import fks.healthhub_backend.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private final NdjsonWriter ndjsonWriter = new NdjsonWriter(objectMapper);
+
+    @Test
+    void write() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Stream<UserDTO> users = Stream.of(new UserDTO(1L, "user1"), new UserDTO(2L, "user2"));
+
+        // Act
+        long count = ndjsonWriter.write(users, out);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals("{\"id\":1,\"username\":\"user1\"}\n{\"id\":2,\"username\":\"user2\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_manyRows() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Stream<UserDTO> users = IntStream.range(0, 2500).mapToObj(i -> new UserDTO((long) i, "user" + i));
+
+        // Act
+        long count = ndjsonWriter.write(users, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2500, count);
+        assertEquals(2500, lines.length);
+        assertEquals(2499, objectMapper.readTree(lines[2499]).get("id").asInt());
+    }
+
+    @Test
+    void write_empty() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = ndjsonWriter.write(Stream.empty(), out);
+
+        // Assert
+        assertEquals(0, count);
+        assertEquals(0, out.size());
+    }
+}
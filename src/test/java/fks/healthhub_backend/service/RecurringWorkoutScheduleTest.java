@@ -0,0 +1,119 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.RecurringOccurrenceDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
+import fks.healthhub_backend.model.User;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RecurringWorkoutScheduleTest implements AutoCloseable {
+
+    @Mock
+    private RecurringWorkoutRepository recurringWorkoutRepository;
+
+    @Mock
+    private UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @InjectMocks
+    private RecurringWorkoutSchedule recurringWorkoutSchedule;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void occurrencesBetween_honoursIntervalEndAndExceptions() {
+        // Arrange: every second Wednesday from 2024-06-05 until 2024-08-01, skipping 2024-07-03
+        RecurringWorkout rule = rule(1L, DayOfWeek.WEDNESDAY, LocalDate.of(2024, 6, 3));
+        rule.setIntervalWeeks(2);
+        rule.setEndDate(LocalDate.of(2024, 8, 1));
+        rule.getExceptions().add(LocalDate.of(2024, 7, 3));
+
+        // Act
+        List<LocalDate> occurrences = rule.occurrencesBetween(LocalDate.of(2024, 6, 10), LocalDate.of(2024, 12, 31));
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2024, 6, 19), LocalDate.of(2024, 7, 17), LocalDate.of(2024, 7, 31)), occurrences);
+        assertTrue(rule.occursOn(LocalDate.of(2024, 6, 5)));
+        assertFalse(rule.occursOn(LocalDate.of(2024, 6, 12)));
+        assertFalse(rule.occursOn(LocalDate.of(2024, 7, 3)));
+        assertFalse(rule.occursOn(LocalDate.of(2024, 8, 14)));
+    }
+
+    @Test
+    void occurrencesBetween_openEndedRuleIsUnbounded() {
+        RecurringWorkout rule = rule(1L, DayOfWeek.MONDAY, LocalDate.of(2020, 1, 1));
+
+        List<LocalDate> occurrences = rule.occurrencesBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31));
+
+        assertEquals(4, occurrences.size());
+        assertEquals(LocalDate.of(2030, 1, 7), occurrences.get(0));
+    }
+
+    @Test
+    void expand_skipsMaterializedOccurrences() {
+        // Arrange
+        RecurringWorkout rule = rule(7L, DayOfWeek.MONDAY, LocalDate.of(2024, 6, 3));
+        ZonedDateTime start = ZonedDateTime.of(2024, 6, 3, 0, 0, 0, 0, ZoneId.of("UTC"));
+        ZonedDateTime end = start.plusWeeks(3).minusSeconds(1);
+
+        when(recurringWorkoutRepository.findActiveByUserId(eq(1L), any(), any())).thenReturn(List.of(rule));
+        when(userHasWorkoutsRepository.findMaterializedOccurrences(eq(List.of(7L)), any(), any()))
+                .thenReturn(List.of(new RecurringOccurrenceDTO(7L, LocalDate.of(2024, 6, 10))));
+
+        // Act
+        List<UserHasWorkouts> occurrences = recurringWorkoutSchedule.expand(1L, start, end);
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 17)),
+                occurrences.stream().map(UserHasWorkouts::getOccurrenceDate).toList());
+        assertNull(occurrences.get(0).getId());
+        assertFalse(occurrences.get(0).getCompleted());
+        assertSame(rule, occurrences.get(0).getRecurringWorkout());
+        assertEquals(start, occurrences.get(0).getScheduledAt());
+    }
+
+    @Test
+    void countPendingOccurrences_withoutRulesSkipsOccurrenceQuery() {
+        when(recurringWorkoutRepository.findActiveByUserId(eq(1L), any(), any())).thenReturn(List.of());
+
+        assertEquals(0, recurringWorkoutSchedule.countPendingOccurrences(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1)));
+        verifyNoInteractions(userHasWorkoutsRepository);
+    }
+
+    private static RecurringWorkout rule(Long id, DayOfWeek dayOfWeek, LocalDate startDate) {
+        RecurringWorkout rule = new RecurringWorkout();
+        rule.setId(id);
+        rule.setUser(new User());
+        rule.setWorkout(new Workout());
+        rule.setDayOfWeek(dayOfWeek);
+        rule.setStartDate(startDate);
+        return rule;
+    }
+}
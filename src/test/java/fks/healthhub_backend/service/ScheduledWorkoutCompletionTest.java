@@ -0,0 +1,130 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.CompletionChangeDTO;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ScheduledWorkoutCompletionTest implements AutoCloseable {
+
+    @Mock
+    private UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @Mock
+    private WorkoutStatsRollup workoutStatsRollup;
+
+    @Mock
+    private WeekCalendarCache weekCalendarCache;
+
+    @Mock
+    private RecurringWorkoutSchedule recurringWorkoutSchedule;
+
+    @InjectMocks
+    private ScheduledWorkoutCompletion scheduledWorkoutCompletion;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void complete_readsBackFlippedRowsByTheirUpdateStamp() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 3, 4, 8, 0, 0, 0, ZoneOffset.UTC);
+        Set<Long> ids = Set.of(1L, 2L, 3L);
+        List<CompletionChangeDTO> changes = List.of(
+                new CompletionChangeDTO(1L, 7L, monday, WorkoutType.CARDIO),
+                new CompletionChangeDTO(3L, 7L, monday.plusDays(1), WorkoutType.CARDIO));
+        when(userHasWorkoutsRepository.updateCompletedByIdIn(eq(ids), eq(true), any())).thenReturn(2);
+        when(userHasWorkoutsRepository.findCompletionChangesByIdIn(eq(ids), any())).thenReturn(changes);
+
+        // Act
+        int updated = scheduledWorkoutCompletion.complete(ids, true);
+
+        // Assert
+        ArgumentCaptor<ZonedDateTime> written = ArgumentCaptor.forClass(ZonedDateTime.class);
+        ArgumentCaptor<ZonedDateTime> read = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(userHasWorkoutsRepository).updateCompletedByIdIn(eq(ids), eq(true), written.capture());
+        verify(userHasWorkoutsRepository).findCompletionChangesByIdIn(eq(ids), read.capture());
+        assertEquals(written.getValue(), read.getValue());
+        assertEquals(0, written.getValue().getNano() % 1000);
+        assertEquals(2, updated);
+        verify(workoutStatsRollup).completionChanged(changes, true);
+        verify(weekCalendarCache).invalidate(7L, List.of(monday, monday.plusDays(1)));
+    }
+
+    @Test
+    void complete_nothingFlippedSkipsRollup() {
+        // Arrange
+        ZonedDateTime from = ZonedDateTime.of(2024, 3, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+        when(userHasWorkoutsRepository.updateCompletedByUserIdAndScheduledAtBetween(eq(7L), eq(from), eq(from.plusWeeks(1)), eq(false), any()))
+                .thenReturn(0);
+
+        // Act
+        int updated = scheduledWorkoutCompletion.complete(7L, from, from.plusWeeks(1), false);
+
+        // Assert
+        assertEquals(0, updated);
+        verify(userHasWorkoutsRepository, never()).findCompletionChangesByUserIdAndScheduledAtBetween(any(), any(), any(), any());
+        verifyNoInteractions(workoutStatsRollup, weekCalendarCache, recurringWorkoutSchedule);
+    }
+
+    @Test
+    void complete_rangeMaterializesPendingRecurringOccurrences() {
+        // Arrange
+        ZonedDateTime from = ZonedDateTime.of(2024, 3, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime to = from.plusWeeks(1);
+        UserHasWorkouts occurrence = new UserHasWorkouts();
+        occurrence.setScheduledAt(from.plusDays(2));
+        occurrence.setCompleted(false);
+        occurrence.setOccurrenceDate(from.plusDays(2).toLocalDate());
+        when(userHasWorkoutsRepository.updateCompletedByUserIdAndScheduledAtBetween(eq(7L), eq(from), eq(to), eq(true), any()))
+                .thenReturn(0);
+        when(recurringWorkoutSchedule.expand(7L, from, to)).thenReturn(List.of(occurrence));
+
+        // Act
+        int updated = scheduledWorkoutCompletion.complete(7L, from, to, true);
+
+        // Assert
+        assertEquals(1, updated);
+        assertTrue(occurrence.getCompleted());
+        verify(userHasWorkoutsRepository).saveAll(List.of(occurrence));
+        verify(workoutStatsRollup).scheduled(List.of(occurrence));
+        verify(weekCalendarCache).invalidate(7L, List.of(from.plusDays(2)));
+    }
+
+    @Test
+    void complete_emptyIdsRunsNoStatement() {
+        // Act
+        int updated = scheduledWorkoutCompletion.complete(Set.of(), true);
+
+        // Assert
+        assertEquals(0, updated);
+        verify(userHasWorkoutsRepository, never()).updateCompletedByIdIn(any(), anyBoolean(), any());
+    }
+}
@@ -1,28 +1,49 @@
 package fks.healthhub_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.dto.BulkScheduleResultDTO;
+import fks.healthhub_backend.dto.CompletionUpdateDTO;
+import fks.healthhub_backend.dto.OccurrenceUpdateDTO;
+import fks.healthhub_backend.dto.PageDTO;
 import fks.healthhub_backend.dto.UserDTO;
+import fks.healthhub_backend.dto.UserHasWorkoutsDTO;
+import fks.healthhub_backend.dto.VersionDTO;
+import fks.healthhub_backend.dto.WorkoutCompletionDTO;
+import fks.healthhub_backend.dto.WorkoutStatsTotalsDTO;
+import fks.healthhub_backend.model.RecurringWorkout;
 import fks.healthhub_backend.model.User;
 import fks.healthhub_backend.model.UserHasWorkouts;
 import fks.healthhub_backend.model.Workout;
 import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
 import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
 import fks.healthhub_backend.repository.UserRepository;
+import fks.healthhub_backend.repository.WorkoutAnalyticsRepository;
 import fks.healthhub_backend.repository.WorkoutRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.NoResultException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.io.ByteArrayOutputStream;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,9 +59,36 @@ class UserServiceTest implements AutoCloseable {
     @Mock
     private UserHasWorkoutsRepository userHasWorkoutsRepository;
 
+    @Mock
+    private WorkoutAnalyticsRepository workoutAnalyticsRepository;
+
+    @Mock
+    private WorkoutStatsRollup workoutStatsRollup;
+
+    @Mock
+    private RecurringWorkoutRepository recurringWorkoutRepository;
+
+    @Mock
+    private RecurringWorkoutSchedule recurringWorkoutSchedule;
+
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private NdjsonWriter ndjsonWriter;
+
+    @Mock
+    private UsernameIndex usernameIndex;
+
+    @Mock
+    private ScheduledWorkoutCompletion scheduledWorkoutCompletion;
+
+    @Mock
+    private CompletionBuffer completionBuffer;
+
+    @Spy
+    private WeekCalendarCache weekCalendarCache = new WeekCalendarCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+
     @InjectMocks
     private UserService userService;
 
@@ -49,6 +97,10 @@ class UserServiceTest implements AutoCloseable {
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
+        when(userHasWorkoutsRepository.findWeekVersionByUserId(any(), any(), any(), any(), any()))
+                .thenReturn(new VersionDTO(0L, null, null, null, null));
+        when(recurringWorkoutRepository.findActiveVersionByUserId(any(), any(), any()))
+                .thenReturn(new VersionDTO(0L, null, null, null));
     }
 
     @Override
@@ -62,19 +114,16 @@ class UserServiceTest implements AutoCloseable {
         Long userId = 1L;
         User user = new User();
         user.setId(userId);
-        JsonNode userJson = mock(JsonNode.class);
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(objectMapper.valueToTree(user)).thenReturn(userJson);
+        when(userRepository.findDetailById(userId)).thenReturn(Optional.of(user));
 
         // Act
-        JsonNode result = userService.getUser(userId);
+        User result = userService.getUser(userId);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(userJson, result);
-        verify(userRepository, times(1)).findById(userId);
-        verify(objectMapper, times(1)).valueToTree(user);
+        assertSame(user, result);
+        verify(userRepository, times(1)).findDetailById(userId);
+        verifyNoInteractions(objectMapper);
     }
 
     @Test
@@ -82,15 +131,55 @@ class UserServiceTest implements AutoCloseable {
         // Arrange
         Long userId = 1L;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findDetailById(userId)).thenReturn(Optional.empty());
 
         // Act
         NoResultException exception = assertThrows(NoResultException.class, () -> userService.getUser(userId));
 
         // Assert
         assertEquals("User with id: 1 does not exist", exception.getMessage());
-        verify(userRepository, times(1)).findById(userId);
-        verify(objectMapper, never()).valueToTree(any());
+        verify(userRepository, times(1)).findDetailById(userId);
+        verifyNoInteractions(objectMapper);
+    }
+
+    @Test
+    void getScheduledWorkoutsForWeek_versionCombinesStoredRowsAndRecurringRules() {
+        // Arrange
+        Long userId = 1L;
+        ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 12, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime sunday = ZonedDateTime.of(2024, 6, 9, 23, 59, 59, 0, ZoneOffset.UTC);
+        when(userHasWorkoutsRepository.findWeekVersionByUserId(userId, monday, sunday, monday.toLocalDate(), sunday.toLocalDate()))
+                .thenReturn(new VersionDTO(2L, date.minusDays(1), null, null, null));
+        when(recurringWorkoutRepository.findActiveVersionByUserId(userId, monday.toLocalDate(), sunday.toLocalDate()))
+                .thenReturn(new VersionDTO(1L, date, null, null, null));
+
+        // Act
+        ResourceVersion version = userService.getScheduledWorkoutsForWeek(userId, date).version();
+
+        // Assert
+        assertEquals(date.toInstant(), version.lastModified());
+        assertTrue(version.eTag().endsWith("-3\""), version.eTag());
+    }
+
+    @Test
+    void getUserVersion_changesWithCountAtSameTimestamp() {
+        // Arrange
+        Long userId = 1L;
+        ZonedDateTime updatedAt = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, ZoneOffset.UTC);
+        when(userRepository.findVersionById(userId)).thenReturn(
+                Optional.of(new VersionDTO(2L, updatedAt, updatedAt.minusDays(1), null, updatedAt.minusDays(2))),
+                Optional.of(new VersionDTO(1L, updatedAt, updatedAt.minusDays(1), null, updatedAt.minusDays(2))));
+
+        // Act
+        ResourceVersion before = userService.getUserVersion(userId);
+        ResourceVersion after = userService.getUserVersion(userId);
+
+        // Assert
+        assertEquals(updatedAt.toInstant(), before.lastModified());
+        assertEquals(before.lastModified(), after.lastModified());
+        assertNotEquals(before.eTag(), after.eTag());
+        verify(userRepository, never()).findDetailById(any());
     }
 
     @Test
@@ -106,17 +195,71 @@ class UserServiceTest implements AutoCloseable {
 
         List<User> users = Arrays.asList(user1, user2);
 
-        when(userRepository.findAll()).thenReturn(users);
+        when(userRepository.findPageOrderById(0L, PageRequest.ofSize(51))).thenReturn(users);
 
         // Act
-        List<UserDTO> result = userService.getAllUsers();
+        PageDTO<UserDTO> result = userService.getAllUsers(50, null, "id");
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("user1", result.get(0).getUsername());
-        assertEquals("user2", result.get(1).getUsername());
-        verify(userRepository, times(1)).findAll();
+        assertEquals(2, result.getItems().size());
+        assertEquals("user1", result.getItems().get(0).getUsername());
+        assertEquals("user2", result.getItems().get(1).getUsername());
+        assertNull(result.getNext());
+        verify(userRepository, times(1)).findPageOrderById(0L, PageRequest.ofSize(51));
+    }
+
+    @Test
+    void getAllUsers_nextPage() {
+        // Arrange
+        User user1 = new User();
+        user1.setId(7L);
+        user1.setUsername("anna");
+
+        User user2 = new User();
+        user2.setId(3L);
+        user2.setUsername("bob");
+
+        when(userRepository.findPageOrderByUsername("", 0L, PageRequest.ofSize(2))).thenReturn(List.of(user1, user2));
+        when(userRepository.findPageOrderByUsername("anna", 7L, PageRequest.ofSize(2))).thenReturn(List.of(user2));
+
+        // Act
+        PageDTO<UserDTO> first = userService.getAllUsers(1, null, "username");
+        PageDTO<UserDTO> second = userService.getAllUsers(1, first.getNext(), "username");
+
+        // Assert
+        assertEquals(1, first.getItems().size());
+        assertEquals("anna", first.getItems().get(0).getUsername());
+        assertNotNull(first.getNext());
+        assertEquals("bob", second.getItems().get(0).getUsername());
+        assertNull(second.getNext());
+    }
+
+    @Test
+    void getAllUsers_invalidArguments() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userService.getAllUsers(0, null, "id"));
+        assertThrows(IllegalArgumentException.class, () -> userService.getAllUsers(10, null, "password"));
+        assertThrows(IllegalArgumentException.class, () -> userService.getAllUsers(10, "not-a-cursor", "id"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void exportUsers() throws Exception {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<UserDTO> users = Stream.of(new UserDTO(1L, "user1")).onClose(() -> closed.set(true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        when(userRepository.streamAll()).thenReturn(users);
+
+        // Act
+        userService.exportUsers(out);
+
+        // Assert
+        verify(ndjsonWriter, times(1)).write(users, out);
+        verify(userRepository, never()).findAll();
+        assertTrue(closed.get());
     }
 
     @Test
@@ -126,23 +269,20 @@ class UserServiceTest implements AutoCloseable {
         UserHasWorkouts userHasWorkout1 = new UserHasWorkouts();
         UserHasWorkouts userHasWorkout2 = new UserHasWorkouts();
         List<UserHasWorkouts> userHasWorkouts = Arrays.asList(userHasWorkout1, userHasWorkout2);
-        JsonNode userHasWorkoutsJson = mock(JsonNode.class);
 
         when(userHasWorkoutsRepository.findByUserId(userId)).thenReturn(userHasWorkouts);
-        when(objectMapper.valueToTree(userHasWorkouts)).thenReturn(userHasWorkoutsJson);
 
         // Act
-        JsonNode result = userService.getScheduledWorkouts(userId);
+        List<UserHasWorkouts> result = userService.getScheduledWorkouts(userId);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(userHasWorkoutsJson, result);
+        assertEquals(userHasWorkouts, result);
         verify(userHasWorkoutsRepository, times(1)).findByUserId(userId);
-        verify(objectMapper, times(1)).valueToTree(userHasWorkouts);
+        verifyNoInteractions(objectMapper);
     }
 
     @Test
-    void getScheduledWorkoutsForWeek_WeekWithWorkouts() {
+    void getScheduledWorkoutsForWeek_WeekWithWorkouts() throws Exception {
         // Arrange
         Long userId = 1L;
         ZonedDateTime date = ZonedDateTime.now();
@@ -153,18 +293,21 @@ class UserServiceTest implements AutoCloseable {
         List<UserHasWorkouts> userWorkouts = Arrays.asList(new UserHasWorkouts(), new UserHasWorkouts());
         when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime))
                 .thenReturn(userWorkouts);
+        byte[] json = "[{},{}]".getBytes();
+        when(objectMapper.writeValueAsBytes(userWorkouts)).thenReturn(json);
 
         // Act
-        JsonNode result = userService.getScheduledWorkoutsForWeek(userId, date);
+        byte[] result = userService.getScheduledWorkoutsForWeek(userId, date).json();
 
         // Assert
-        assertEquals(objectMapper.valueToTree(userWorkouts), result);
+        assertArrayEquals(json, result);
         verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
         verifyNoMoreInteractions(userHasWorkoutsRepository);
     }
 
     @Test
-    void getScheduledWorkoutsForWeek_WeekWithPartialWorkouts() {
+    void getScheduledWorkoutsForWeek_WeekWithPartialWorkouts() throws Exception {
         // Arrange
         Long userId = 1L;
         ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 0, 0, 0, 0, ZoneId.systemDefault());
@@ -175,18 +318,21 @@ class UserServiceTest implements AutoCloseable {
         List<UserHasWorkouts> userWorkouts = Arrays.asList(new UserHasWorkouts(), new UserHasWorkouts());
         when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime))
                 .thenReturn(userWorkouts);
+        byte[] json = "[{},{}]".getBytes();
+        when(objectMapper.writeValueAsBytes(userWorkouts)).thenReturn(json);
 
         // Act
-        JsonNode result = userService.getScheduledWorkoutsForWeek(userId, date);
+        byte[] result = userService.getScheduledWorkoutsForWeek(userId, date).json();
 
         // Assert
-        assertEquals(objectMapper.valueToTree(userWorkouts), result);
+        assertArrayEquals(json, result);
         verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
         verifyNoMoreInteractions(userHasWorkoutsRepository);
     }
 
     @Test
-    void getScheduledWorkoutsForWeek_WeekWithoutWorkouts() {
+    void getScheduledWorkoutsForWeek_WeekWithoutWorkouts() throws Exception {
         // Arrange
         Long userId = 1L;
         ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 0, 0, 0, 0, ZoneId.systemDefault());
@@ -199,16 +345,17 @@ class UserServiceTest implements AutoCloseable {
                 .thenReturn(userWorkouts);
 
         // Act
-        JsonNode result = userService.getScheduledWorkoutsForWeek(userId, date);
+        byte[] result = userService.getScheduledWorkoutsForWeek(userId, date).json();
 
         // Assert
         assertNull(result);
         verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
         verifyNoMoreInteractions(userHasWorkoutsRepository);
     }
 
     @Test
-    void getScheduledWorkoutsForWeek_DateOnFirstDayOfWeek() {
+    void getScheduledWorkoutsForWeek_DateOnFirstDayOfWeek() throws Exception {
         // Arrange
         Long userId = 1L;
         ZonedDateTime date = ZonedDateTime.of(2024, 6, 3, 0, 0, 0, 0, ZoneId.systemDefault());
@@ -219,18 +366,21 @@ class UserServiceTest implements AutoCloseable {
         List<UserHasWorkouts> userWorkouts = Arrays.asList(new UserHasWorkouts(), new UserHasWorkouts());
         when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime))
                 .thenReturn(userWorkouts);
+        byte[] json = "[{},{}]".getBytes();
+        when(objectMapper.writeValueAsBytes(userWorkouts)).thenReturn(json);
 
         // Act
-        JsonNode result = userService.getScheduledWorkoutsForWeek(userId, date);
+        byte[] result = userService.getScheduledWorkoutsForWeek(userId, date).json();
 
         // Assert
-        assertEquals(objectMapper.valueToTree(userWorkouts), result);
+        assertArrayEquals(json, result);
         verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
         verifyNoMoreInteractions(userHasWorkoutsRepository);
     }
 
     @Test
-    void getScheduledWorkoutsForWeek_DateOnLastDayOfWeek() {
+    void getScheduledWorkoutsForWeek_DateOnLastDayOfWeek() throws Exception {
         // Arrange
         Long userId = 1L;
         ZonedDateTime date = ZonedDateTime.of(2024, 6, 9, 0, 0, 0, 0, ZoneId.systemDefault());
@@ -241,13 +391,16 @@ class UserServiceTest implements AutoCloseable {
         List<UserHasWorkouts> userWorkouts = Arrays.asList(new UserHasWorkouts(), new UserHasWorkouts());
         when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime))
                 .thenReturn(userWorkouts);
+        byte[] json = "[{},{}]".getBytes();
+        when(objectMapper.writeValueAsBytes(userWorkouts)).thenReturn(json);
 
         // Act
-        JsonNode result = userService.getScheduledWorkoutsForWeek(userId, date);
+        byte[] result = userService.getScheduledWorkoutsForWeek(userId, date).json();
 
         // Assert
-        assertEquals(objectMapper.valueToTree(userWorkouts), result);
+        assertArrayEquals(json, result);
         verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(userId, startOfWeekDateTime, endOfWeekDateTime);
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
         verifyNoMoreInteractions(userHasWorkoutsRepository);
     }
 
@@ -274,92 +427,65 @@ class UserServiceTest implements AutoCloseable {
     @Test
     void getWorkoutCompletion() {
         Long userId = 1L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(true);
-        workout1.setScheduledAt(ZonedDateTime.now().minusDays(10));
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(false);
-        workout2.setScheduledAt(ZonedDateTime.now().minusDays(20));
-        UserHasWorkouts workout3 = new UserHasWorkouts();
-        workout3.setCompleted(true);
-        workout3.setScheduledAt(ZonedDateTime.now().minusDays(30));
-
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2, workout3);
 
-        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class))).thenReturn(workouts);
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 1L, 1L),
+                new WorkoutStatsTotalsDTO(WorkoutType.CARDIO, 1L, 0L)));
 
-        JsonNode result = userService.getWorkoutCompletion(userId, 91);
+        WorkoutCompletionDTO result = userService.getWorkoutCompletion(userId, 91);
 
         assertNotNull(result);
-        assertEquals(2, result.get("complete").asInt());
-        assertEquals(1, result.get("incomplete").asInt());
-        assertEquals(67, result.get("percentage").asInt());
+        assertEquals(2, result.getComplete());
+        assertEquals(1, result.getIncomplete());
+        assertEquals(67, result.getPercentage());
 
-        verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class));
+        LocalDate expectedFrom = LocalDate.now(ZoneOffset.UTC).minusDays(91);
+        verify(workoutAnalyticsRepository, times(1)).totalsByWorkoutTypeFrom(userId, expectedFrom);
+        verifyNoInteractions(userHasWorkoutsRepository);
     }
 
     @Test
     void getWorkoutCompletion_noCompletedWorkouts() {
         Long userId = 2L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(false);
-        workout1.setScheduledAt(ZonedDateTime.now().minusDays(10));
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(false);
-        workout2.setScheduledAt(ZonedDateTime.now().minusDays(20));
 
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2);
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 0L, 2L)));
 
-        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class))).thenReturn(workouts);
-
-        JsonNode result = userService.getWorkoutCompletion(userId, 91);
+        WorkoutCompletionDTO result = userService.getWorkoutCompletion(userId, 91);
 
         assertNotNull(result);
-        assertEquals(0, result.get("complete").asInt());
-        assertEquals(2, result.get("incomplete").asInt());
-        assertEquals(0, result.get("percentage").asInt());
-
-        verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class));
+        assertEquals(0, result.getComplete());
+        assertEquals(2, result.getIncomplete());
+        assertEquals(0, result.getPercentage());
     }
 
     @Test
     void getWorkoutCompletion_noIncompleteWorkouts() {
         Long userId = 3L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(true);
-        workout1.setScheduledAt(ZonedDateTime.now().minusDays(10));
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(true);
-        workout2.setScheduledAt(ZonedDateTime.now().minusDays(20));
 
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2);
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.MOBILITY, 2L, 0L)));
 
-        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class))).thenReturn(workouts);
-
-        JsonNode result = userService.getWorkoutCompletion(userId, 91);
+        WorkoutCompletionDTO result = userService.getWorkoutCompletion(userId, 91);
 
         assertNotNull(result);
-        assertEquals(2, result.get("complete").asInt());
-        assertEquals(0, result.get("incomplete").asInt());
-        assertEquals(100, result.get("percentage").asInt());
-
-        verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class));
+        assertEquals(2, result.getComplete());
+        assertEquals(0, result.getIncomplete());
+        assertEquals(100, result.getPercentage());
     }
 
     @Test
     void getWorkoutCompletion_noWorkouts() {
         Long userId = 4L;
 
-        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class))).thenReturn(List.of());
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of());
 
-        JsonNode result = userService.getWorkoutCompletion(userId, 91);
+        WorkoutCompletionDTO result = userService.getWorkoutCompletion(userId, 91);
 
         assertNotNull(result);
-        assertEquals(0, result.get("complete").asInt());
-        assertEquals(0, result.get("incomplete").asInt());
-        assertEquals(0, result.get("percentage").asInt());
-
-        verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtAfter(eq(userId), any(ZonedDateTime.class));
+        assertEquals(0, result.getComplete());
+        assertEquals(0, result.getIncomplete());
+        assertEquals(0, result.getPercentage());
     }
 
 
@@ -367,108 +493,78 @@ class UserServiceTest implements AutoCloseable {
     void getWorkoutFavourite_allTypesPresent() {
         // Arrange
         Long userId = 1L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(true);
-        Workout workoutType1 = new Workout();
-        workoutType1.setWorkoutType(WorkoutType.STRENGTH);
-        workout1.setWorkout(workoutType1);
-
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(true);
-        Workout workoutType2 = new Workout();
-        workoutType2.setWorkoutType(WorkoutType.CARDIO);
-        workout2.setWorkout(workoutType2);
 
-        UserHasWorkouts workout3 = new UserHasWorkouts();
-        workout3.setCompleted(true);
-        Workout workoutType3 = new Workout();
-        workoutType3.setWorkoutType(WorkoutType.MOBILITY);
-        workout3.setWorkout(workoutType3);
-
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2, workout3);
-
-        when(userHasWorkoutsRepository.findByUserId(userId)).thenReturn(workouts);
+        when(workoutAnalyticsRepository.totalsByWorkoutType(userId)).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 1L, 4L),
+                new WorkoutStatsTotalsDTO(WorkoutType.CARDIO, 1L, 0L),
+                new WorkoutStatsTotalsDTO(WorkoutType.MOBILITY, 1L, 2L)));
 
         // Act
-        JsonNode result = userService.getWorkoutFavourite(userId);
+        Map<WorkoutType, Long> result = userService.getWorkoutFavourite(userId, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.get("STRENGTH").asInt());
-        assertEquals(1, result.get("CARDIO").asInt());
-        assertEquals(1, result.get("MOBILITY").asInt());
+        assertEquals(1L, result.get(WorkoutType.STRENGTH));
+        assertEquals(1L, result.get(WorkoutType.CARDIO));
+        assertEquals(1L, result.get(WorkoutType.MOBILITY));
 
-        verify(userHasWorkoutsRepository, times(1)).findByUserId(userId);
+        verify(workoutAnalyticsRepository, times(1)).totalsByWorkoutType(userId);
+        verifyNoInteractions(userHasWorkoutsRepository);
     }
 
     @Test
     void getWorkoutFavourite_noCompletedWorkouts() {
         // Arrange
         Long userId = 2L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(false);
-        Workout workoutType1 = new Workout();
-        workoutType1.setWorkoutType(WorkoutType.STRENGTH);
-        workout1.setWorkout(workoutType1);
-
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(false);
-        Workout workoutType2 = new Workout();
-        workoutType2.setWorkoutType(WorkoutType.CARDIO);
-        workout2.setWorkout(workoutType2);
-
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2);
 
-        when(userHasWorkoutsRepository.findByUserId(userId)).thenReturn(workouts);
+        when(workoutAnalyticsRepository.totalsByWorkoutType(userId)).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 0L, 1L),
+                new WorkoutStatsTotalsDTO(WorkoutType.CARDIO, 0L, 1L)));
 
         // Act
-        JsonNode result = userService.getWorkoutFavourite(userId);
+        Map<WorkoutType, Long> result = userService.getWorkoutFavourite(userId, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(0, result.get("STRENGTH").asInt());
-        assertEquals(0, result.get("CARDIO").asInt());
-        assertEquals(0, result.get("MOBILITY").asInt());
-
-        verify(userHasWorkoutsRepository, times(1)).findByUserId(userId);
+        assertEquals(0L, result.get(WorkoutType.STRENGTH));
+        assertEquals(0L, result.get(WorkoutType.CARDIO));
+        assertEquals(0L, result.get(WorkoutType.MOBILITY));
     }
 
     @Test
     void getWorkoutFavourite_mixedWorkoutTypes() {
         // Arrange
         Long userId = 3L;
-        UserHasWorkouts workout1 = new UserHasWorkouts();
-        workout1.setCompleted(true);
-        Workout workoutType1 = new Workout();
-        workoutType1.setWorkoutType(WorkoutType.STRENGTH);
-        workout1.setWorkout(workoutType1);
 
-        UserHasWorkouts workout2 = new UserHasWorkouts();
-        workout2.setCompleted(true);
-        Workout workoutType2 = new Workout();
-        workoutType2.setWorkoutType(WorkoutType.STRENGTH);
-        workout2.setWorkout(workoutType2);
+        when(workoutAnalyticsRepository.totalsByWorkoutType(userId)).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 2L, 0L),
+                new WorkoutStatsTotalsDTO(WorkoutType.MOBILITY, 1L, 0L)));
 
-        UserHasWorkouts workout3 = new UserHasWorkouts();
-        workout3.setCompleted(true);
-        Workout workoutType3 = new Workout();
-        workoutType3.setWorkoutType(WorkoutType.MOBILITY);
-        workout3.setWorkout(workoutType3);
+        // Act
+        Map<WorkoutType, Long> result = userService.getWorkoutFavourite(userId, null);
 
-        List<UserHasWorkouts> workouts = Arrays.asList(workout1, workout2, workout3);
+        // Assert
+        assertNotNull(result);
+        assertEquals(2L, result.get(WorkoutType.STRENGTH));
+        assertEquals(0L, result.get(WorkoutType.CARDIO));
+        assertEquals(1L, result.get(WorkoutType.MOBILITY));
+    }
+
+    @Test
+    void getWorkoutFavourite_withDays() {
+        // Arrange
+        Long userId = 3L;
 
-        when(userHasWorkoutsRepository.findByUserId(userId)).thenReturn(workouts);
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.CARDIO, 3L, 0L)));
 
         // Act
-        JsonNode result = userService.getWorkoutFavourite(userId);
+        Map<WorkoutType, Long> result = userService.getWorkoutFavourite(userId, 7);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.get("STRENGTH").asInt());
-        assertEquals(0, result.get("CARDIO").asInt());
-        assertEquals(1, result.get("MOBILITY").asInt());
-
-        verify(userHasWorkoutsRepository, times(1)).findByUserId(userId);
+        assertEquals(3L, result.get(WorkoutType.CARDIO));
+        verify(workoutAnalyticsRepository, times(1)).totalsByWorkoutTypeFrom(userId, LocalDate.now(ZoneOffset.UTC).minusDays(7));
+        verify(workoutAnalyticsRepository, never()).totalsByWorkoutType(any());
     }
 
     @Test
@@ -476,18 +572,27 @@ class UserServiceTest implements AutoCloseable {
         // Arrange
         Long userId = 4L;
 
-        when(userHasWorkoutsRepository.findByUserId(userId)).thenReturn(List.of());
+        when(workoutAnalyticsRepository.totalsByWorkoutType(userId)).thenReturn(List.of());
 
         // Act
-        JsonNode result = userService.getWorkoutFavourite(userId);
+        Map<WorkoutType, Long> result = userService.getWorkoutFavourite(userId, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(0, result.get("STRENGTH").asInt());
-        assertEquals(0, result.get("CARDIO").asInt());
-        assertEquals(0, result.get("MOBILITY").asInt());
+        assertEquals(0L, result.get(WorkoutType.STRENGTH));
+        assertEquals(0L, result.get(WorkoutType.CARDIO));
+        assertEquals(0L, result.get(WorkoutType.MOBILITY));
+    }
 
-        verify(userHasWorkoutsRepository, times(1)).findByUserId(userId);
+    @Test
+    void rebuildWorkoutStats() {
+        // Act
+        userService.rebuildWorkoutStats();
+        userService.rebuildWorkoutStats(7L);
+
+        // Assert
+        verify(workoutStatsRollup, times(1)).rebuild();
+        verify(workoutStatsRollup, times(1)).rebuild(7L);
     }
 
     @Test
@@ -496,15 +601,14 @@ class UserServiceTest implements AutoCloseable {
         User user = new User();
         user.setUsername("testUser");
 
-        when(userRepository.findByUsername("testUser")).thenReturn(null);
-        when(userRepository.save(user)).thenReturn(user);
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
 
         // Act
         userService.createUser(user);
 
         // Assert
-        verify(userRepository, times(1)).findByUsername("testUser");
-        verify(userRepository, times(1)).save(user);
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(usernameIndex, times(1)).add("testUser");
     }
 
     @Test
@@ -512,18 +616,54 @@ class UserServiceTest implements AutoCloseable {
         // Arrange
         User user = new User();
         user.setUsername("testUser");
-        User existingUser = new User();
-        existingUser.setUsername("testUser");
 
-        when(userRepository.findByUsername("testUser")).thenReturn(existingUser);
+        when(userRepository.saveAndFlush(user)).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", null, "UK_USERS_USERNAME")));
 
         // Act
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.createUser(user));
 
         // Assert
         assertEquals("Username: testUser is already taken", exception.getMessage());
-        verify(userRepository, times(1)).findByUsername("testUser");
-        verify(userRepository, never()).save(any());
+        verify(usernameIndex, never()).add(any());
+    }
+
+    @Test
+    void createUser_otherConstraintViolationIsNotTranslated() {
+        // Arrange
+        User user = new User();
+        user.setUsername("testUser");
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("null value",
+                new ConstraintViolationException("null value", null, "users_password_not_null"));
+
+        when(userRepository.saveAndFlush(user)).thenThrow(violation);
+
+        // Act
+        DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(user));
+
+        // Assert
+        assertSame(violation, exception);
+    }
+
+    @Test
+    void updateUser_usernameTaken() {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("oldUsername");
+        User updatedUser = new User();
+        updatedUser.setUsername("takenUsername");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(user)).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", null, "uk_users_username")));
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.updateUser(1L, updatedUser));
+
+        // Assert
+        assertEquals("Username: takenUsername is already taken", exception.getMessage());
+        verify(weekCalendarCache, never()).invalidateAll();
     }
 
     @Test
@@ -538,13 +678,15 @@ class UserServiceTest implements AutoCloseable {
         UserHasWorkouts userHasWorkouts = new UserHasWorkouts();
         userHasWorkouts.setScheduledAt(scheduledAt);
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(new Workout()));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(workoutRepository.findWorkoutTypeById(workoutId)).thenReturn(Optional.of(WorkoutType.STRENGTH));
 
         // Act & Assert
         assertDoesNotThrow(() -> userService.createScheduledWorkout(userHasWorkouts, userId, workoutId, recurring, dayOfWeek, scheduledAt));
 
         verify(userHasWorkoutsRepository).save(any(UserHasWorkouts.class));
+        verify(workoutStatsRollup).scheduled(userHasWorkouts, WorkoutType.STRENGTH);
+        verify(workoutRepository, never()).findById(any());
     }
 
     @Test
@@ -557,22 +699,245 @@ class UserServiceTest implements AutoCloseable {
 
         User user = new User();
         Workout workout = new Workout();
-        List<UserHasWorkouts> scheduledWorkouts = new ArrayList<>();
-        scheduledWorkouts.add(new UserHasWorkouts());
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
-        when(userHasWorkoutsRepository.saveAll(any())).thenReturn(scheduledWorkouts);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.getReferenceById(userId)).thenReturn(user);
+        when(workoutRepository.findWorkoutTypeById(workoutId)).thenReturn(Optional.of(WorkoutType.CARDIO));
+        when(workoutRepository.getReferenceById(workoutId)).thenReturn(workout);
+        when(recurringWorkoutRepository.save(any(RecurringWorkout.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         Object result = userService.createScheduledWorkout(new UserHasWorkouts(), userId, workoutId, recurring, dayOfWeek, null);
 
         // Assert
-        assertNotNull(result);
-        assertTrue(result instanceof List);
-        assertEquals(1, ((List<?>) result).size());
+        RecurringWorkout recurringWorkout = assertInstanceOf(RecurringWorkout.class, result);
+        assertEquals(DayOfWeek.MONDAY, recurringWorkout.getDayOfWeek());
+        assertEquals(1, recurringWorkout.getIntervalWeeks());
+        assertNull(recurringWorkout.getEndDate());
+        assertSame(user, recurringWorkout.getUser());
+        assertSame(workout, recurringWorkout.getWorkout());
+
+        verify(userHasWorkoutsRepository, never()).saveAll(any());
+        verify(userHasWorkoutsRepository, never()).save(any());
+        verifyNoInteractions(workoutStatsRollup);
+    }
+
+    @Test
+    void getScheduledWorkoutsForWeek_includesRecurringOccurrences() throws Exception {
+        // Arrange
+        Long userId = 1L;
+        ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 0, 0, 0, 0, ZoneId.of("UTC"));
+        UserHasWorkouts stored = new UserHasWorkouts();
+        stored.setScheduledAt(date.plusDays(1));
+        UserHasWorkouts occurrence = new UserHasWorkouts();
+        occurrence.setScheduledAt(date.minusDays(2));
+
+        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(eq(userId), any(), any())).thenReturn(List.of(stored));
+        when(recurringWorkoutSchedule.expand(eq(userId), any(), any())).thenReturn(List.of(occurrence));
+
+        // Act
+        userService.getScheduledWorkoutsForWeek(userId, date);
+
+        // Assert
+        verify(objectMapper).writeValueAsBytes(List.of(occurrence, stored));
+    }
+
+    @Test
+    void getScheduledWorkoutsForWeek_servesRepeatedReadsFromCache() throws Exception {
+        // Arrange
+        Long userId = 1L;
+        ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 0, 0, 0, 0, ZoneId.of("UTC"));
+        byte[] json = "[]".getBytes();
+        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(eq(userId), any(), any())).thenReturn(List.of());
+        when(objectMapper.writeValueAsBytes(any())).thenReturn(json);
+
+        // Act
+        WeekCalendar first = userService.getScheduledWorkoutsForWeek(userId, date);
+        WeekCalendar second = userService.getScheduledWorkoutsForWeek(userId, date.plusDays(2));
+
+        // Assert
+        assertSame(first, second);
+        verify(userHasWorkoutsRepository, times(1)).findByUserIdAndScheduledAtBetween(eq(userId), any(), any());
+        verify(userHasWorkoutsRepository, times(1)).findWeekVersionByUserId(eq(userId), any(), any(), any(), any());
+        verify(recurringWorkoutRepository, times(1)).findActiveVersionByUserId(eq(userId), any(), any());
+    }
+
+    @Test
+    void createScheduledWorkout_invalidatesCachedWeek() throws Exception {
+        // Arrange
+        Long userId = 1L;
+        Long workoutId = 2L;
+        ZonedDateTime date = ZonedDateTime.of(2024, 6, 6, 0, 0, 0, 0, ZoneId.of("UTC"));
+        when(userHasWorkoutsRepository.findByUserIdAndScheduledAtBetween(eq(userId), any(), any())).thenReturn(List.of());
+        when(objectMapper.writeValueAsBytes(any())).thenReturn("[]".getBytes());
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(workoutRepository.findWorkoutTypeById(workoutId)).thenReturn(Optional.of(WorkoutType.STRENGTH));
+        userService.getScheduledWorkoutsForWeek(userId, date);
+
+        // Act
+        userService.createScheduledWorkout(new UserHasWorkouts(), userId, workoutId, false, null, date.plusDays(1));
+        userService.getScheduledWorkoutsForWeek(userId, date);
+
+        // Assert
+        verify(weekCalendarCache).invalidate(userId, date.plusDays(1));
+        verify(userHasWorkoutsRepository, times(2)).findByUserIdAndScheduledAtBetween(eq(userId), any(), any());
+    }
+
+    @Test
+    void getWorkoutCompletion_countsPendingRecurringOccurrences() {
+        // Arrange
+        Long userId = 1L;
+        when(workoutAnalyticsRepository.totalsByWorkoutTypeFrom(eq(userId), any(LocalDate.class))).thenReturn(List.of(
+                new WorkoutStatsTotalsDTO(WorkoutType.STRENGTH, 1L, 0L)));
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(recurringWorkoutSchedule.countPendingOccurrences(userId, today.minusDays(28), today)).thenReturn(3L);
+
+        // Act
+        WorkoutCompletionDTO result = userService.getWorkoutCompletion(userId, 28);
+
+        // Assert
+        assertEquals(1, result.getComplete());
+        assertEquals(3, result.getIncomplete());
+        assertEquals(25, result.getPercentage());
+    }
+
+    @Test
+    void updateRecurringOccurrence_materializesOccurrence() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+        OccurrenceUpdateDTO update = new OccurrenceUpdateDTO();
+        update.setCompleted(true);
+
+        when(recurringWorkoutRepository.findById(5L)).thenReturn(Optional.of(recurringWorkout));
+        when(userHasWorkoutsRepository.findByRecurringWorkoutIdAndOccurrenceDate(5L, monday.plusWeeks(1))).thenReturn(Optional.empty());
+        when(userHasWorkoutsRepository.save(any(UserHasWorkouts.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        UserHasWorkouts occurrence = userService.updateRecurringOccurrence(5L, monday.plusWeeks(1), update);
+
+        // Assert
+        assertTrue(occurrence.getCompleted());
+        assertSame(recurringWorkout, occurrence.getRecurringWorkout());
+        assertEquals(monday.plusWeeks(1), occurrence.getOccurrenceDate());
+        assertEquals(RecurringWorkoutSchedule.scheduledAt(monday.plusWeeks(1)), occurrence.getScheduledAt());
+        verify(workoutStatsRollup, never()).unscheduled(any());
+        verify(workoutStatsRollup).scheduled(List.of(occurrence));
+    }
+
+    @Test
+    void updateRecurringOccurrence_rejectsDateOutsideRule() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        when(recurringWorkoutRepository.findById(5L)).thenReturn(Optional.of(recurringWorkout(5L, DayOfWeek.MONDAY, monday)));
+        when(userHasWorkoutsRepository.findByRecurringWorkoutIdAndOccurrenceDate(5L, monday.plusDays(1))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userService.updateRecurringOccurrence(5L, monday.plusDays(1), null));
+        verify(userHasWorkoutsRepository, never()).save(any());
+    }
+
+    @Test
+    void skipRecurringOccurrence() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+        UserHasWorkouts materialized = new UserHasWorkouts();
+
+        when(recurringWorkoutRepository.findById(5L)).thenReturn(Optional.of(recurringWorkout));
+        when(userHasWorkoutsRepository.findByRecurringWorkoutIdAndOccurrenceDate(5L, monday)).thenReturn(Optional.of(materialized));
+
+        // Act
+        userService.skipRecurringOccurrence(5L, monday);
+
+        // Assert
+        assertTrue(recurringWorkout.getExceptions().contains(monday));
+        verify(recurringWorkoutRepository).save(recurringWorkout);
+        verify(userHasWorkoutsRepository).delete(materialized);
+        verify(workoutStatsRollup).unscheduled(List.of(materialized));
+    }
+
+    @Test
+    void cancelRecurringWorkout_wholeSeries() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+
+        when(recurringWorkoutRepository.findById(5L)).thenReturn(Optional.of(recurringWorkout));
+
+        // Act
+        userService.cancelRecurringWorkout(5L, null);
+
+        // Assert
+        InOrder inOrder = inOrder(workoutStatsRollup, userHasWorkoutsRepository, recurringWorkoutRepository);
+        inOrder.verify(workoutStatsRollup).unscheduledByRecurringWorkoutId(5L, monday);
+        inOrder.verify(userHasWorkoutsRepository).deleteByRecurringWorkoutIdFrom(5L, monday);
+        inOrder.verify(recurringWorkoutRepository).delete(recurringWorkout);
+    }
+
+    @Test
+    void cancelRecurringWorkout_fromDateEndsSeries() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        LocalDate from = monday.plusWeeks(4);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+
+        when(recurringWorkoutRepository.findById(5L)).thenReturn(Optional.of(recurringWorkout));
+
+        // Act
+        userService.cancelRecurringWorkout(5L, from);
+
+        // Assert
+        assertEquals(from.minusDays(1), recurringWorkout.getEndDate());
+        verify(workoutStatsRollup).unscheduledByRecurringWorkoutId(5L, from);
+        verify(userHasWorkoutsRepository).deleteByRecurringWorkoutIdFrom(5L, from);
+        verify(recurringWorkoutRepository).save(recurringWorkout);
+        verify(recurringWorkoutRepository, never()).delete(any());
+    }
+
+    @Test
+    void cancelScheduledWorkouts_deletesRangeAndSkipsRecurringOccurrences() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        ZonedDateTime from = RecurringWorkoutSchedule.scheduledAt(monday.plusWeeks(1));
+        ZonedDateTime to = from.plusWeeks(2);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+
+        when(recurringWorkoutRepository.findActiveWithExceptionsByUserId(1L, from.toLocalDate(), to.toLocalDate())).thenReturn(List.of(recurringWorkout));
+
+        // Act
+        userService.cancelScheduledWorkouts(1L, from, to);
+
+        // Assert
+        verify(workoutStatsRollup).unscheduledByUserId(1L, from, to);
+        verify(userHasWorkoutsRepository).deleteByUserIdAndScheduledAtBetween(1L, from, to);
+        assertEquals(Set.of(monday.plusWeeks(1), monday.plusWeeks(2)), recurringWorkout.getExceptions());
+        verify(recurringWorkoutRepository).updateUpdatedAtByIdIn(eq(List.of(5L)), any());
+        verify(recurringWorkoutRepository, never()).save(any());
+        verify(weekCalendarCache).invalidateUser(1L);
+    }
+
+    @Test
+    void cancelScheduledWorkouts_emptyRange() {
+        // Arrange
+        ZonedDateTime from = ZonedDateTime.now();
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.cancelScheduledWorkouts(1L, from, from));
+
+        // Assert
+        assertEquals("from must be before to", exception.getMessage());
+        verifyNoInteractions(workoutStatsRollup);
+    }
 
-        verify(userHasWorkoutsRepository, times(1)).saveAll(any());
+    private static RecurringWorkout recurringWorkout(Long id, DayOfWeek dayOfWeek, LocalDate startDate) {
+        RecurringWorkout recurringWorkout = new RecurringWorkout();
+        recurringWorkout.setId(id);
+        recurringWorkout.setUser(new User());
+        recurringWorkout.setWorkout(new Workout());
+        recurringWorkout.setDayOfWeek(dayOfWeek);
+        recurringWorkout.setStartDate(startDate);
+        return recurringWorkout;
     }
 
     @Test
@@ -583,13 +948,13 @@ class UserServiceTest implements AutoCloseable {
         boolean recurring = false;
         DayOfWeek dayOfWeek = null;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         // Act & Assert
         assertThrows(Exception.class,
                 () -> userService.createScheduledWorkout(new UserHasWorkouts(), userId, workoutId, recurring, dayOfWeek, null));
 
-        verify(workoutRepository, never()).findById(workoutId);
+        verify(workoutRepository, never()).findWorkoutTypeById(workoutId);
         verify(userHasWorkoutsRepository, never()).save(any());
     }
 
@@ -601,8 +966,8 @@ class UserServiceTest implements AutoCloseable {
         boolean recurring = false;
         DayOfWeek dayOfWeek = null;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(workoutRepository.findWorkoutTypeById(workoutId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(Exception.class,
@@ -619,14 +984,14 @@ class UserServiceTest implements AutoCloseable {
         boolean recurring = true;
         DayOfWeek dayOfWeek = null;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         // Act & Assert
         assertThrows(Exception.class,
                 () -> userService.createScheduledWorkout(new UserHasWorkouts(), userId, workoutId, recurring, dayOfWeek, null));
 
-        verify(userRepository).findById(userId);
-        verify(workoutRepository, never()).findById(any());
+        verify(userRepository).existsById(userId);
+        verify(workoutRepository, never()).findWorkoutTypeById(any());
         verify(userHasWorkoutsRepository, never()).save(any());
     }
 
@@ -648,7 +1013,8 @@ class UserServiceTest implements AutoCloseable {
         // Assert
         assertEquals("newUsername", user.getUsername());
         verify(userRepository, times(1)).findById(userId);
-        verify(userRepository, times(1)).save(user);
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(weekCalendarCache).invalidateAll();
     }
 
     @Test
@@ -665,7 +1031,140 @@ class UserServiceTest implements AutoCloseable {
         // Assert
         assertEquals("User with ID: 1 could not be found", exception.getMessage());
         verify(userRepository, times(1)).findById(userId);
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateCompletion_byIds() {
+        // Arrange
+        CompletionUpdateDTO update = new CompletionUpdateDTO();
+        update.setIds(List.of(1L, 2L, 2L));
+        update.setCompleted(true);
+
+        when(scheduledWorkoutCompletion.complete(Set.of(1L, 2L), true)).thenReturn(2);
+
+        // Act
+        int updated = userService.updateCompletion(update);
+
+        // Assert
+        assertEquals(2, updated);
+    }
+
+    @Test
+    void updateCompletion_byUserAndRange() {
+        // Arrange
+        ZonedDateTime from = ZonedDateTime.of(2024, 3, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+        CompletionUpdateDTO update = new CompletionUpdateDTO();
+        update.setUserId(1L);
+        update.setFrom(from);
+        update.setTo(from.plusWeeks(1));
+
+        // Act
+        userService.updateCompletion(update);
+
+        // Assert
+        verify(scheduledWorkoutCompletion, times(1)).complete(1L, from, from.plusWeeks(1), false);
+    }
+
+    @Test
+    void updateCompletion_missingSelection() {
+        // Arrange
+        CompletionUpdateDTO update = new CompletionUpdateDTO();
+        update.setUserId(1L);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.updateCompletion(update));
+
+        // Assert
+        assertEquals("Either ids or userId, from and to are required", exception.getMessage());
+        verifyNoInteractions(scheduledWorkoutCompletion);
+    }
+
+    @Test
+    void bufferCompletion() {
+        // Arrange
+        when(userHasWorkoutsRepository.existsById(5L)).thenReturn(true);
+
+        // Act
+        userService.bufferCompletion(5L, true);
+
+        // Assert
+        verify(completionBuffer, times(1)).submit(5L, true);
+    }
+
+    @Test
+    void bufferCompletion_unknownScheduledWorkout() {
+        // Arrange
+        when(userHasWorkoutsRepository.existsById(5L)).thenReturn(false);
+
+        // Act
+        NoResultException exception = assertThrows(NoResultException.class, () -> userService.bufferCompletion(5L, true));
+
+        // Assert
+        assertEquals("Scheduled workout not found with ID: 5", exception.getMessage());
+        verifyNoInteractions(completionBuffer);
+    }
+
+    @Test
+    void createScheduledWorkouts_validatesIdsWithSetQueries() {
+        // Arrange
+        Workout workout = new Workout();
+        workout.setId(10L);
+        workout.setWorkoutType(WorkoutType.CARDIO);
+        User user = new User();
+        user.setId(1L);
+
+        List<UserHasWorkoutsDTO> entries = List.of(
+                scheduleEntry(1L, 10L, false, null, ZonedDateTime.now()),
+                scheduleEntry(1L, 10L, true, DayOfWeek.FRIDAY, null),
+                scheduleEntry(2L, 10L, false, null, ZonedDateTime.now()),
+                scheduleEntry(1L, 11L, false, null, ZonedDateTime.now()),
+                scheduleEntry(1L, 10L, true, null, null));
+
+        when(userRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(workoutRepository.findAllById(Set.of(10L, 11L))).thenReturn(List.of(workout));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+        // Act
+        List<BulkScheduleResultDTO> results = userService.createScheduledWorkouts(entries);
+
+        // Assert
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertNull(results.get(0).getRecurringWorkoutId());
+        assertTrue(results.get(1).isCreated());
+        assertNull(results.get(1).getId());
+        assertEquals("User not found with ID: 2", results.get(2).getError());
+        assertEquals("Workout not found with ID: 11", results.get(3).getError());
+        assertEquals("Day of week is required for recurring workouts", results.get(4).getError());
+        assertFalse(results.get(4).isCreated());
+
+        verify(userRepository, never()).findById(any());
+        verify(workoutRepository, never()).findById(any());
+        verify(userHasWorkoutsRepository, times(1)).saveAll(argThat(rows -> ((List<?>) rows).size() == 1));
+        verify(recurringWorkoutRepository, times(1)).saveAll(argThat(rows -> ((List<?>) rows).size() == 1));
+        verify(workoutStatsRollup, times(1)).scheduled(argThat(rows -> rows.size() == 1));
+    }
+
+    @Test
+    void createScheduledWorkouts_empty() {
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.createScheduledWorkouts(List.of()));
+
+        // Assert
+        assertEquals("At least one scheduled workout is required", exception.getMessage());
+        verifyNoInteractions(userHasWorkoutsRepository);
+    }
+
+    private static UserHasWorkoutsDTO scheduleEntry(Long userId, Long workoutId, boolean recurring, DayOfWeek dayOfWeek, ZonedDateTime scheduledAt) {
+        UserHasWorkoutsDTO entry = new UserHasWorkoutsDTO();
+        entry.setUserId(userId);
+        entry.setWorkoutId(workoutId);
+        entry.setRecurring(recurring);
+        entry.setDayOfWeek(dayOfWeek);
+        entry.setScheduledAt(scheduledAt);
+        return entry;
     }
 
     @Test
@@ -674,6 +1173,7 @@ class UserServiceTest implements AutoCloseable {
         Long userHasWorkoutsId = 1L;
         UserHasWorkouts userHasWorkouts = new UserHasWorkouts();
         userHasWorkouts.setId(userHasWorkoutsId);
+        userHasWorkouts.setUser(new User());
 
         when(userHasWorkoutsRepository.findById(userHasWorkoutsId)).thenReturn(Optional.of(userHasWorkouts));
 
@@ -683,6 +1183,38 @@ class UserServiceTest implements AutoCloseable {
         // Assert
         verify(userHasWorkoutsRepository, times(1)).findById(userHasWorkoutsId);
         verify(userHasWorkoutsRepository, times(1)).delete(userHasWorkouts);
+        verify(workoutStatsRollup, times(1)).unscheduled(List.of(userHasWorkouts));
+    }
+
+    @Test
+    void deleteScheduledWorkout_materializedOccurrenceIsNotExpandedAgain() {
+        // Arrange
+        LocalDate monday = LocalDate.of(2024, 6, 3);
+        ZonedDateTime startOfWeek = RecurringWorkoutSchedule.scheduledAt(monday);
+        RecurringWorkout recurringWorkout = recurringWorkout(5L, DayOfWeek.MONDAY, monday);
+        UserHasWorkouts occurrence = new UserHasWorkouts();
+        occurrence.setId(1L);
+        occurrence.setUser(recurringWorkout.getUser());
+        occurrence.setRecurringWorkout(recurringWorkout);
+        occurrence.setOccurrenceDate(monday);
+        occurrence.setScheduledAt(startOfWeek);
+        ZonedDateTime previousUpdate = recurringWorkout.getUpdatedAt();
+
+        when(userHasWorkoutsRepository.findById(1L)).thenReturn(Optional.of(occurrence));
+        when(recurringWorkoutRepository.findActiveByUserId(any(), any(), any())).thenReturn(List.of(recurringWorkout));
+        when(userHasWorkoutsRepository.findMaterializedOccurrences(any(), any(), any())).thenReturn(List.of());
+        RecurringWorkoutSchedule schedule = new RecurringWorkoutSchedule(recurringWorkoutRepository, userHasWorkoutsRepository);
+
+        // Act
+        userService.deleteScheduledWorkout(1L);
+        List<UserHasWorkouts> week = schedule.expand(recurringWorkout.getUser().getId(), startOfWeek, startOfWeek.plusWeeks(1).minusSeconds(1));
+
+        // Assert
+        assertTrue(recurringWorkout.getExceptions().contains(monday));
+        assertNotSame(previousUpdate, recurringWorkout.getUpdatedAt());
+        verify(recurringWorkoutRepository).save(recurringWorkout);
+        verify(userHasWorkoutsRepository).delete(occurrence);
+        assertTrue(week.isEmpty());
     }
 
     @Test
@@ -697,5 +1229,6 @@ class UserServiceTest implements AutoCloseable {
 
         verify(userHasWorkoutsRepository, times(1)).findById(userHasWorkoutsId);
         verify(userHasWorkoutsRepository, never()).delete(any());
+        verifyNoInteractions(workoutStatsRollup);
     }
 }
@@ -0,0 +1,108 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UsernameIndexTest implements AutoCloseable {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UsernameIndex usernameIndex;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        usernameIndex = new UsernameIndex(userRepository);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void isAvailable_unknownUsernameSkipsDatabase() {
+        // Arrange
+        when(userRepository.findAllUsernames()).thenReturn(List.of("anna", "bob"));
+
+        // Act
+        boolean available = usernameIndex.isAvailable("carl");
+
+        // Assert
+        assertTrue(available);
+        verify(userRepository, never()).existsByUsername(any());
+    }
+
+    @Test
+    void isAvailable_takenUsernameIsConfirmedByDatabase() {
+        // Arrange
+        when(userRepository.findAllUsernames()).thenReturn(List.of("anna", "bob"));
+        when(userRepository.existsByUsername("anna")).thenReturn(true);
+
+        // Act
+        boolean available = usernameIndex.isAvailable("anna");
+
+        // Assert
+        assertFalse(available);
+        verify(userRepository, times(1)).existsByUsername("anna");
+    }
+
+    @Test
+    void add_makesUsernameUnavailable() {
+        // Arrange
+        when(userRepository.findAllUsernames()).thenReturn(List.of());
+        when(userRepository.existsByUsername("dora")).thenReturn(true);
+        usernameIndex.refresh();
+
+        // Act
+        usernameIndex.add("dora");
+
+        // Assert
+        assertFalse(usernameIndex.isAvailable("dora"));
+    }
+
+    @Test
+    void isAvailable_blankUsernameIsNotAvailable() {
+        // Act & Assert
+        assertFalse(usernameIndex.isAvailable(" "));
+        assertFalse(usernameIndex.isAvailable(null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void isAvailable_falsePositivesStayRare() {
+        // Arrange
+        when(userRepository.findAllUsernames()).thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "user" + i).toList());
+
+        // Act
+        IntStream.range(0, 10_000).forEach(i -> usernameIndex.isAvailable("free" + i));
+
+        // Assert
+        verify(userRepository, atMost(100)).existsByUsername(any());
+    }
+
+    @Test
+    void add_rebuildsOnceCapacityIsExceeded() {
+        // Arrange
+        when(userRepository.findAllUsernames()).thenReturn(List.of());
+        usernameIndex.refresh();
+
+        // Act
+        IntStream.rangeClosed(0, 1 << 14).forEach(i -> usernameIndex.add("user" + i));
+
+        // Assert
+        verify(userRepository, times(2)).findAllUsernames();
+    }
+}
@@ -0,0 +1,133 @@
+package fks.healthhub_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeekCalendarCacheTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    private SimpleMeterRegistry meterRegistry;
+    private WeekCalendarCache weekCalendarCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        weekCalendarCache = new WeekCalendarCache(meterRegistry, 100, Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+    }
+
+    private WeekCalendar load(Long userId, ZonedDateTime date) {
+        return weekCalendarCache.get(userId, date, () -> {
+            loads.incrementAndGet();
+            return new WeekCalendar(new byte[]{1}, ResourceVersion.of(1, List.of(date)));
+        });
+    }
+
+    @Test
+    void get_sameWeekIsLoadedOnce() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, UTC);
+
+        // Act
+        load(1L, monday);
+        load(1L, monday.plusDays(6));
+        load(1L, monday.plusDays(7));
+        load(2L, monday);
+
+        // Assert
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidate_dropsOnlyTheWeekContainingTheInstant() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, UTC);
+        load(1L, monday);
+        load(1L, monday.plusWeeks(1));
+        load(2L, monday);
+
+        // Act
+        weekCalendarCache.invalidate(1L, monday.plusDays(2));
+        load(1L, monday);
+        load(1L, monday.plusWeeks(1));
+        load(2L, monday);
+
+        // Assert
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void invalidate_matchesWeeksInTheZoneTheyWereRequestedIn() {
+        // Arrange
+        ZonedDateTime tokyoMonday = ZonedDateTime.of(2024, 6, 10, 8, 0, 0, 0, TOKYO);
+        load(1L, tokyoMonday);
+
+        // Act
+        weekCalendarCache.invalidate(1L, ZonedDateTime.of(2024, 6, 9, 20, 0, 0, 0, UTC));
+        load(1L, tokyoMonday);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_ignoresMissingInstants() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, UTC);
+        load(1L, monday);
+
+        // Act
+        weekCalendarCache.invalidate(1L, (ZonedDateTime) null);
+        weekCalendarCache.invalidate(null, monday);
+        load(1L, monday);
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateUser_dropsAllWeeksOfThatUser() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, UTC);
+        load(1L, monday);
+        load(1L, monday.plusWeeks(1));
+        load(2L, monday);
+
+        // Act
+        weekCalendarCache.invalidateUser(1L);
+        load(1L, monday);
+        load(1L, monday.plusWeeks(1));
+        load(2L, monday);
+
+        // Assert
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void get_recordsHitAndMissMetrics() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, UTC);
+
+        // Act
+        load(1L, monday);
+        load(1L, monday);
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "scheduledWorkoutsForWeek")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "scheduledWorkoutsForWeek")
+                .tag("result", "miss").functionCounter().count());
+    }
+}
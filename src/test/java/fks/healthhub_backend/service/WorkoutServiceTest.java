@@ -1,23 +1,39 @@
 package fks.healthhub_backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fks.healthhub_backend.dto.PageDTO;
+import fks.healthhub_backend.dto.VersionDTO;
 import fks.healthhub_backend.dto.WorkoutDTO;
+import fks.healthhub_backend.dto.WorkoutDetailRowDTO;
+import fks.healthhub_backend.dto.WorkoutHasExercisesDTO;
+import fks.healthhub_backend.dto.WorkoutPatchDTO;
+import fks.healthhub_backend.model.Exercise;
 import fks.healthhub_backend.model.User;
 import fks.healthhub_backend.model.Workout;
 import fks.healthhub_backend.model.WorkoutHasExercises;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.ExerciseRepository;
+import fks.healthhub_backend.repository.RecurringWorkoutRepository;
+import fks.healthhub_backend.repository.UserHasWorkoutsRepository;
 import fks.healthhub_backend.repository.UserRepository;
 import fks.healthhub_backend.repository.WorkoutHasExercisesRepository;
 import fks.healthhub_backend.repository.WorkoutRepository;
 import jakarta.persistence.NoResultException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +52,24 @@ class WorkoutServiceTest implements AutoCloseable {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ExerciseRepository exerciseRepository;
+
+    @Mock
+    private NdjsonWriter ndjsonWriter;
+
+    @Mock
+    private RecurringWorkoutRepository recurringWorkoutRepository;
+
+    @Mock
+    private UserHasWorkoutsRepository userHasWorkoutsRepository;
+
+    @Mock
+    private WeekCalendarCache weekCalendarCache;
+
+    @Mock
+    private WorkoutStatsRollup workoutStatsRollup;
+
     @InjectMocks
     private WorkoutService workoutService;
 
@@ -55,20 +89,42 @@ class WorkoutServiceTest implements AutoCloseable {
     void getWorkout() {
         // Arrange
         Long workoutId = 1L;
-        Workout workout = new Workout();
-        workout.setId(workoutId);
+        List<WorkoutDetailRowDTO> rows = List.of(
+                new WorkoutDetailRowDTO(workoutId, "Leg day", "Squats first", WorkoutType.STRENGTH, 2L, "user",
+                        10L, 3, 8, 100.0, 90),
+                new WorkoutDetailRowDTO(workoutId, "Leg day", "Squats first", WorkoutType.STRENGTH, 2L, "user",
+                        11L, 4, 12, 60.0, 60));
 
+        when(workoutRepository.findDetailRowsById(workoutId)).thenReturn(rows);
 
-        // Mocking the repository to return an Optional<WorkoutDTO> containing the workout DTO object
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
+        // Act
+        WorkoutDTO result = workoutService.getWorkout(workoutId);
 
-        // Mocking the objectMapper to return a JsonNode
-        when(objectMapper.valueToTree(any(WorkoutDTO.class))).thenAnswer(invocation -> {
-            WorkoutDTO argument = invocation.getArgument(0);
-            // Creating a JsonNode from the workoutDTO
-            return objectMapper.valueToTree(argument);
-        });
+        // Assert
+        assertEquals(workoutId, result.getId());
+        assertEquals("Leg day", result.getTitle());
+        assertEquals(WorkoutType.STRENGTH, result.getWorkoutType());
+        assertEquals(2L, result.getUser().getId());
+        assertEquals("user", result.getUser().getUsername());
+        assertEquals(List.of(10L, 11L), result.getWorkoutHasExercises().stream().map(WorkoutHasExercisesDTO::getId).toList());
+        verify(workoutRepository, times(1)).findDetailRowsById(workoutId);
+        verify(objectMapper, never()).valueToTree(any());
+    }
 
+    @Test
+    void getWorkout_withoutExercises() {
+        // Arrange
+        Long workoutId = 1L;
+        when(workoutRepository.findDetailRowsById(workoutId)).thenReturn(List.of(
+                new WorkoutDetailRowDTO(workoutId, "Rest", null, WorkoutType.CARDIO, 2L, "user",
+                        null, null, null, null, null)));
+
+        // Act
+        WorkoutDTO result = workoutService.getWorkout(workoutId);
+
+        // Assert
+        assertTrue(result.getWorkoutHasExercises().isEmpty());
+        assertEquals(2L, result.getUser().getId());
     }
 
     @Test
@@ -76,34 +132,89 @@ class WorkoutServiceTest implements AutoCloseable {
         // Arrange
         Long workoutId = 1L;
 
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.empty());
+        when(workoutRepository.findDetailRowsById(workoutId)).thenReturn(List.of());
 
         // Act
         NoResultException exception = assertThrows(NoResultException.class, () -> workoutService.getWorkout(workoutId));
 
         // Assert
         assertEquals("Workout with id: 1 does not exist", exception.getMessage());
-        verify(workoutRepository, times(1)).findById(workoutId);
-        verify(objectMapper, never()).valueToTree(any());
+        verify(workoutRepository, times(1)).findDetailRowsById(workoutId);
+    }
+
+    @Test
+    void getWorkoutVersion_usesNewestTimestampAndCount() {
+        // Arrange
+        Long workoutId = 1L;
+        ZonedDateTime updatedAt = ZonedDateTime.of(2024, 6, 3, 8, 0, 0, 0, ZoneOffset.UTC);
+        when(workoutRepository.findVersionById(workoutId))
+                .thenReturn(Optional.of(new VersionDTO(3L, updatedAt, updatedAt.plusSeconds(1), null)));
+
+        // Act
+        ResourceVersion version = workoutService.getWorkoutVersion(workoutId);
+
+        // Assert
+        assertEquals(updatedAt.plusSeconds(1).toInstant(), version.lastModified());
+        assertEquals("W/\"" + Long.toHexString(updatedAt.plusSeconds(1).toEpochSecond() * 1_000_000) + "-3\"", version.eTag());
+        verify(workoutRepository, never()).findDetailRowsById(any());
+    }
+
+    @Test
+    void getWorkoutVersion_notFound() {
+        // Arrange
+        when(workoutRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act
+        NoResultException exception = assertThrows(NoResultException.class, () -> workoutService.getWorkoutVersion(1L));
+
+        // Assert
+        assertEquals("Workout with id: 1 does not exist", exception.getMessage());
     }
 
     @Test
     void getAllWorkouts() {
         // Arrange
         Workout workout1 = new Workout();
+        workout1.setId(1L);
         Workout workout2 = new Workout();
+        workout2.setId(2L);
         List<Workout> workouts = Arrays.asList(workout1, workout2);
 
-        when(workoutRepository.findAll()).thenReturn(workouts);
+        when(workoutRepository.findPageOrderById(0L, PageRequest.ofSize(51))).thenReturn(workouts);
 
         // Act
-        List<Workout> result = workoutService.getAllWorkouts();
+        PageDTO<Workout> result = workoutService.getAllWorkouts(50, null, "id");
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(workouts, result);
-        verify(workoutRepository, times(1)).findAll();
+        assertEquals(2, result.getItems().size());
+        assertEquals(workouts, result.getItems());
+        assertNull(result.getNext());
+        verify(workoutRepository, times(1)).findPageOrderById(0L, PageRequest.ofSize(51));
+        verify(workoutRepository, times(1)).fetchWorkoutHasExercises(workouts);
+        verify(workoutRepository, times(1)).fetchUserHasWorkouts(workouts);
+    }
+
+    @Test
+    void getAllWorkouts_nextPage() {
+        // Arrange
+        Workout workout1 = new Workout();
+        workout1.setId(1L);
+        Workout workout2 = new Workout();
+        workout2.setId(2L);
+
+        when(workoutRepository.findPageOrderById(0L, PageRequest.ofSize(2))).thenReturn(List.of(workout1, workout2));
+        when(workoutRepository.findPageOrderById(1L, PageRequest.ofSize(2))).thenReturn(List.of(workout2));
+
+        // Act
+        PageDTO<Workout> first = workoutService.getAllWorkouts(1, null, "id");
+        PageDTO<Workout> second = workoutService.getAllWorkouts(1, first.getNext(), "id");
+
+        // Assert
+        assertEquals(List.of(workout1), first.getItems());
+        assertNotNull(first.getNext());
+        assertEquals(List.of(workout2), second.getItems());
+        assertNull(second.getNext());
     }
 
     @Test
@@ -124,6 +235,8 @@ class WorkoutServiceTest implements AutoCloseable {
         assertEquals(2, result.size());
         assertEquals(workouts, result);
         verify(workoutRepository, times(1)).findWorkoutsByUserId(userId);
+        verify(workoutRepository, times(1)).fetchWorkoutHasExercises(workouts);
+        verify(workoutRepository, times(1)).fetchUserHasWorkouts(workouts);
     }
 
     @Test
@@ -149,6 +262,64 @@ class WorkoutServiceTest implements AutoCloseable {
         verify(workoutRepository, times(1)).save(workout);
     }
 
+    @Test
+    void createWorkout_resolvesExercisesInOneQuery() {
+        // Arrange
+        Long userId = 1L;
+        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        Exercise squat = new Exercise();
+        squat.setId(3L);
+        Exercise bench = new Exercise();
+        bench.setId(7L);
+        WorkoutHasExercises first = withExercise(7L);
+        WorkoutHasExercises second = withExercise(3L);
+        WorkoutHasExercises third = withExercise(7L);
+        Workout workout = new Workout();
+        workout.setWorkoutHasExercises(new LinkedHashSet<>(List.of(first, second, third)));
+
+        when(exerciseRepository.findByIdIn(List.of(3L, 7L))).thenReturn(List.of(squat, bench));
+        when(workoutRepository.save(workout)).thenReturn(workout);
+
+        // Act
+        workoutService.createWorkout(workout, userId);
+
+        // Assert
+        assertSame(bench, first.getExercise());
+        assertSame(squat, second.getExercise());
+        assertSame(bench, third.getExercise());
+        assertSame(workout, first.getWorkout());
+        verify(exerciseRepository, times(1)).findByIdIn(List.of(3L, 7L));
+        verify(exerciseRepository, never()).findById(any());
+    }
+
+    @Test
+    void createWorkout_unknownExercises() {
+        // Arrange
+        Long userId = 1L;
+        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        Exercise squat = new Exercise();
+        squat.setId(3L);
+        Workout workout = new Workout();
+        workout.setWorkoutHasExercises(new LinkedHashSet<>(List.of(withExercise(9L), withExercise(3L), withExercise(5L))));
+
+        when(exerciseRepository.findByIdIn(List.of(3L, 5L, 9L))).thenReturn(List.of(squat));
+
+        // Act
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> workoutService.createWorkout(workout, userId));
+
+        // Assert
+        assertEquals("Exercises with IDs: [5, 9] do not exist", exception.getMessage());
+        verify(workoutRepository, never()).save(any());
+    }
+
+    private static WorkoutHasExercises withExercise(Long exerciseId) {
+        Exercise exercise = new Exercise();
+        exercise.setId(exerciseId);
+        WorkoutHasExercises workoutHasExercises = new WorkoutHasExercises();
+        workoutHasExercises.setExercise(exercise);
+        return workoutHasExercises;
+    }
+
     @Test
     void createWorkout_userNotFound() {
         // Arrange
@@ -180,7 +351,8 @@ class WorkoutServiceTest implements AutoCloseable {
         updatedWorkout.setDescription("New Description");
 
         when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(existingWorkout));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.getReferenceById(userId)).thenReturn(user);
 
         // Act
         workoutService.updateWorkout(workoutId, updatedWorkout, userId);
@@ -190,7 +362,7 @@ class WorkoutServiceTest implements AutoCloseable {
         assertEquals("New Description", existingWorkout.getDescription());
         assertEquals(user, existingWorkout.getUser());
         verify(workoutRepository, times(1)).findById(workoutId);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userRepository, never()).findById(userId);
         verify(workoutRepository, times(1)).save(existingWorkout);
     }
 
@@ -209,23 +381,118 @@ class WorkoutServiceTest implements AutoCloseable {
         // Assert
         assertEquals("Workout with ID: 1 could not be found", exception.getMessage());
         verify(workoutRepository, times(1)).findById(workoutId);
-        verify(userRepository, never()).findById(userId);
+        verify(userRepository, never()).existsById(userId);
         verify(workoutRepository, never()).save(any());
     }
 
     @Test
-    void deleteWorkout() {
+    void patchWorkout_changesOnlyGivenFields() {
+        // Arrange
+        Long workoutId = 1L;
+        Workout workout = new Workout();
+        workout.setId(workoutId);
+        workout.setTitle("Old Title");
+        workout.setDescription("Description");
+        workout.setWorkoutType(WorkoutType.CARDIO);
+        WorkoutPatchDTO patch = new WorkoutPatchDTO();
+        patch.setTitle("New Title");
+        patch.setWorkoutType(WorkoutType.CARDIO);
+
+        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
+
+        // Act
+        workoutService.patchWorkout(workoutId, patch);
+
+        // Assert
+        assertEquals("New Title", workout.getTitle());
+        assertEquals("Description", workout.getDescription());
+        assertNotNull(workout.getUpdatedAt());
+        verify(weekCalendarCache, times(2)).invalidateUsers(any());
+        verifyNoInteractions(userRepository);
+        verify(workoutRepository, never()).save(any());
+    }
+
+    @Test
+    void patchWorkout_unchangedSkipsInvalidation() {
+        // Arrange
+        Long workoutId = 1L;
+        Workout workout = new Workout();
+        workout.setId(workoutId);
+        workout.setTitle("Title");
+        WorkoutPatchDTO patch = new WorkoutPatchDTO();
+        patch.setTitle("Title");
+
+        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
+
+        // Act
+        workoutService.patchWorkout(workoutId, patch);
+
+        // Assert
+        assertNull(workout.getUpdatedAt());
+        verifyNoInteractions(weekCalendarCache);
+    }
+
+    @Test
+    void patchWorkout_wiresOwnerByReference() {
         // Arrange
         Long workoutId = 1L;
-        Workout workout = new Workout(); // Create a workout object
+        Long userId = 2L;
+        Workout workout = new Workout();
+        workout.setId(workoutId);
+        User owner = new User();
+        owner.setId(userId);
+        WorkoutPatchDTO patch = new WorkoutPatchDTO();
+        patch.setUserId(userId);
 
         when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.getReferenceById(userId)).thenReturn(owner);
+
+        // Act
+        workoutService.patchWorkout(workoutId, patch);
+
+        // Assert
+        assertSame(owner, workout.getUser());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void patchWorkout_unknownOwner() {
+        // Arrange
+        Long workoutId = 1L;
+        WorkoutPatchDTO patch = new WorkoutPatchDTO();
+        patch.setUserId(9L);
+
+        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(new Workout()));
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        // Act
+        Exception exception = assertThrows(Exception.class, () -> workoutService.patchWorkout(workoutId, patch));
+
+        // Assert
+        assertEquals("User not found with ID: 9", exception.getMessage());
+        verify(userRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void deleteWorkout() {
+        // Arrange
+        Long workoutId = 1L;
+
+        when(workoutRepository.existsById(workoutId)).thenReturn(true);
 
         // Act
         workoutService.deleteWorkout(workoutId);
 
         // Assert
-        verify(workoutRepository, times(1)).delete(workout);
+        InOrder inOrder = inOrder(workoutStatsRollup, userHasWorkoutsRepository, recurringWorkoutRepository,
+                workoutHasExercisesRepository, workoutRepository);
+        inOrder.verify(workoutStatsRollup).unscheduledByWorkoutId(workoutId);
+        inOrder.verify(userHasWorkoutsRepository).deleteByWorkoutId(workoutId);
+        inOrder.verify(recurringWorkoutRepository).deleteByWorkoutId(workoutId);
+        inOrder.verify(workoutHasExercisesRepository).deleteByWorkoutId(workoutId);
+        inOrder.verify(workoutRepository).deleteAllByIdInBatch(List.of(workoutId));
+        verify(workoutRepository, never()).findById(any());
     }
 
 
@@ -257,23 +524,24 @@ class WorkoutServiceTest implements AutoCloseable {
     @Test
     void deleteWorkout_ExistingWorkout_ShouldDelete() {
         Long workoutId = 1L;
-        Workout workout = new Workout();
-        workout.setId(workoutId);
 
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.of(workout));
+        when(workoutRepository.existsById(workoutId)).thenReturn(true);
+        when(userHasWorkoutsRepository.findUserIdsByWorkoutId(workoutId)).thenReturn(Set.of(2L));
 
         workoutService.deleteWorkout(workoutId);
 
-        verify(workoutRepository, times(1)).delete(workout);
+        verify(weekCalendarCache, times(1)).invalidateUsers(Set.of(2L));
+        verify(workoutRepository, times(1)).deleteAllByIdInBatch(List.of(workoutId));
     }
 
     @Test
     void deleteWorkout_NonExistingWorkout_ShouldThrowException() {
         Long workoutId = 1L;
 
-        when(workoutRepository.findById(workoutId)).thenReturn(Optional.empty());
+        when(workoutRepository.existsById(workoutId)).thenReturn(false);
 
         NoResultException exception = assertThrows(NoResultException.class, () -> workoutService.deleteWorkout(workoutId));
         assertEquals("Workout with ID: 1 could not be found", exception.getMessage());
+        verifyNoInteractions(workoutStatsRollup, userHasWorkoutsRepository);
     }
 }
@@ -0,0 +1,128 @@
+package fks.healthhub_backend.service;
+
+import fks.healthhub_backend.dto.CompletionChangeDTO;
+import fks.healthhub_backend.model.User;
+import fks.healthhub_backend.model.UserHasWorkouts;
+import fks.healthhub_backend.model.Workout;
+import fks.healthhub_backend.model.WorkoutType;
+import fks.healthhub_backend.repository.UserWorkoutStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class WorkoutStatsRollupTest implements AutoCloseable {
+
+    @Mock
+    private UserWorkoutStatsRepository userWorkoutStatsRepository;
+
+    @InjectMocks
+    private WorkoutStatsRollup workoutStatsRollup;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @Override
+    public void close() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void statDate_usesUtcDay() {
+        ZonedDateTime lateEvening = ZonedDateTime.of(2024, 3, 4, 23, 30, 0, 0, ZoneId.of("America/New_York"));
+
+        assertEquals(LocalDate.of(2024, 3, 5), WorkoutStatsRollup.statDate(lateEvening));
+    }
+
+    @Test
+    void scheduled_foldsRowsPerUserDayAndType() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 3, 4, 8, 0, 0, 0, ZoneId.of("UTC"));
+        List<UserHasWorkouts> rows = List.of(
+                scheduledWorkout(1L, WorkoutType.STRENGTH, monday, false),
+                scheduledWorkout(1L, WorkoutType.STRENGTH, monday.plusHours(2), true),
+                scheduledWorkout(1L, WorkoutType.CARDIO, monday, false),
+                scheduledWorkout(1L, WorkoutType.STRENGTH, monday.plusWeeks(1), false));
+
+        // Act
+        workoutStatsRollup.scheduled(rows);
+
+        // Assert
+        verify(userWorkoutStatsRepository).upsert(1L, LocalDate.of(2024, 3, 4), "STRENGTH", 1L, 1L);
+        verify(userWorkoutStatsRepository).upsert(1L, LocalDate.of(2024, 3, 4), "CARDIO", 0L, 1L);
+        verify(userWorkoutStatsRepository).upsert(1L, LocalDate.of(2024, 3, 11), "STRENGTH", 0L, 1L);
+        verifyNoMoreInteractions(userWorkoutStatsRepository);
+    }
+
+    @Test
+    void scheduled_usesTheGivenWorkoutType() {
+        ZonedDateTime monday = ZonedDateTime.of(2024, 3, 4, 8, 0, 0, 0, ZoneId.of("UTC"));
+        UserHasWorkouts row = scheduledWorkout(3L, WorkoutType.STRENGTH, monday, false);
+        row.setWorkout(null);
+
+        workoutStatsRollup.scheduled(row, WorkoutType.CARDIO);
+
+        verify(userWorkoutStatsRepository).upsert(3L, LocalDate.of(2024, 3, 4), "CARDIO", 0L, 1L);
+    }
+
+    @Test
+    void unscheduled_subtractsCounts() {
+        ZonedDateTime monday = ZonedDateTime.of(2024, 3, 4, 8, 0, 0, 0, ZoneId.of("UTC"));
+
+        workoutStatsRollup.unscheduled(List.of(scheduledWorkout(2L, WorkoutType.MOBILITY, monday, true)));
+
+        verify(userWorkoutStatsRepository).upsert(2L, LocalDate.of(2024, 3, 4), "MOBILITY", -1L, 0L);
+    }
+
+    @Test
+    void completionChanged_foldsBulkChangesPerUserDayAndType() {
+        // Arrange
+        ZonedDateTime monday = ZonedDateTime.of(2024, 3, 4, 8, 0, 0, 0, ZoneId.of("UTC"));
+        List<CompletionChangeDTO> changes = List.of(
+                new CompletionChangeDTO(1L, 1L, monday, WorkoutType.STRENGTH),
+                new CompletionChangeDTO(2L, 1L, monday.plusHours(3), WorkoutType.STRENGTH),
+                new CompletionChangeDTO(3L, 1L, monday.plusDays(1), WorkoutType.CARDIO));
+
+        // Act
+        workoutStatsRollup.completionChanged(changes, false);
+
+        // Assert
+        verify(userWorkoutStatsRepository).upsert(1L, LocalDate.of(2024, 3, 4), "STRENGTH", -2L, 2L);
+        verify(userWorkoutStatsRepository).upsert(1L, LocalDate.of(2024, 3, 5), "CARDIO", -1L, 1L);
+        verifyNoMoreInteractions(userWorkoutStatsRepository);
+    }
+
+    @Test
+    void rebuild() {
+        workoutStatsRollup.rebuild(3L);
+
+        verify(userWorkoutStatsRepository).deleteAllByUserId(3L);
+        verify(userWorkoutStatsRepository).insertAggregatedByUserId(3L);
+    }
+
+    private static UserHasWorkouts scheduledWorkout(Long userId, WorkoutType type, ZonedDateTime scheduledAt, boolean completed) {
+        User user = new User();
+        user.setId(userId);
+        Workout workout = new Workout();
+        workout.setWorkoutType(type);
+        UserHasWorkouts scheduledWorkout = new UserHasWorkouts();
+        scheduledWorkout.setUser(user);
+        scheduledWorkout.setWorkout(workout);
+        scheduledWorkout.setScheduledAt(scheduledAt);
+        scheduledWorkout.setCompleted(completed);
+        return scheduledWorkout;
+    }
+}